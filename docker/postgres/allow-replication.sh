@@ -0,0 +1,23 @@
+#!/bin/bash
+# Создает роль replicator для потоковой репликации и разрешает ей подключаться только по паролю (scram-sha-256).
+# При создании нового тома выполняется автоматически из /docker-entrypoint-initdb.d. Скрипт повторяемый:
+# для уже существующего тома его запускают вручную в работающем контейнере, см. README.
+set -e
+
+if [ -z "$REPLICATION_PASSWORD" ]; then
+    echo "REPLICATION_PASSWORD не задан" >&2
+    exit 1
+fi
+
+psql -v ON_ERROR_STOP=1 -v password="$REPLICATION_PASSWORD" --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-'EOSQL'
+	SET password_encryption = 'scram-sha-256';
+	SELECT format('CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD %L', :'password')
+	WHERE NOT EXISTS (SELECT 1 FROM pg_roles WHERE rolname = 'replicator') \gexec
+	ALTER ROLE replicator WITH PASSWORD :'password';
+EOSQL
+
+HBA_LINE="host replication replicator all scram-sha-256"
+if ! grep -qxF "$HBA_LINE" "$PGDATA/pg_hba.conf"; then
+    echo "$HBA_LINE" >> "$PGDATA/pg_hba.conf"
+fi
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" -c "SELECT pg_reload_conf()" > /dev/null
@@ -0,0 +1,132 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Допуск к пулу соединений: одновременно соединение держат не больше {@code maxConcurrent} потоков,
+ * остальные ждут в очереди FIFO не дольше {@code acquireTimeout}. Если в очереди уже {@code maxWaiting}
+ * потоков, запрос отклоняется сразу. С виртуальными потоками запросов может быть тысячи, и без допуска
+ * все они разом ждут внутри Hikari до его connectionTimeout.
+ * Разрешение возвращается при закрытии выданного соединения. Жизненным циклом пула обертка не управляет.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long acquireTimeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public AdmissionControlledDataSource(DataSource target, String pool, int maxConcurrent, int maxWaiting,
+                                         Duration acquireTimeout, MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        this.waitTimer = Timer.builder("jdbc.admission.wait").tag("pool", pool).register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("jdbc.admission.rejected").tag("pool", pool).tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("jdbc.admission.rejected").tag("pool", pool).tag("reason", "timeout")
+                .register(meterRegistry);
+        Gauge.builder("jdbc.admission.waiting", waiting, AtomicInteger::get).tag("pool", pool).register(meterRegistry);
+        Gauge.builder("jdbc.admission.active", permits, p -> maxConcurrent - p.availablePermits()).tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return admitted(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return admitted(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            throw new SQLTransientConnectionException("Очередь за соединением с БД переполнена");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            // С нулевым ожиданием тоже соблюдает очередь, в отличие от tryAcquire() без аргументов
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения с БД прервано", e);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejectedTimeout.increment();
+            throw new SQLTransientConnectionException("Соединение с БД не получено за " + Duration.ofNanos(acquireTimeoutNanos));
+        }
+    }
+
+    private Connection admitted(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> target;
+                    case "unwrap" -> ((Class<?>) args[0]).isInstance(proxy) ? proxy : target.unwrap((Class<?>) args[0]);
+                    case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+                    case "close" -> {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
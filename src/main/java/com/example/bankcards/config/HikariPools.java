@@ -0,0 +1,33 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+/**
+ * Основной пул для конфигураций, которые объявляют {@code dataSource} сами вместо автоконфигурации.
+ */
+final class HikariPools {
+
+    private HikariPools() {
+    }
+
+    static HikariDataSource primary(DataSourceProperties properties,
+                                    ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        // Подключение из @ServiceConnection (Testcontainers) важнее spring.datasource.url, как и в автоконфигурации
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        HikariDataSource dataSource = details == null
+                ? properties.initializeDataSourceBuilder().type(HikariDataSource.class).build()
+                : DataSourceBuilder.create(properties.getClassLoader())
+                        .type(HikariDataSource.class)
+                        .driverClassName(details.getDriverClassName())
+                        .url(details.getJdbcUrl())
+                        .username(details.getUsername())
+                        .password(details.getPassword())
+                        .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+}
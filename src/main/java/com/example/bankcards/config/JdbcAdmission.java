@@ -0,0 +1,39 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Настройки очереди допуска ({@code cards.jdbc-admission.*}). Конфигурации источников данных пропускают
+ * через {@link #admit} каждый пул, перед которым нужна очередь; сам пул остается отдельным бином
+ * {@link HikariDataSource}.
+ */
+public class JdbcAdmission {
+
+    private final boolean enabled;
+    private final int maxWaiting;
+    private final Duration acquireTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public JdbcAdmission(boolean enabled, int maxWaiting, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeout = acquireTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Пул за очередью допуска, если она включена, иначе сам пул. Число допущенных потоков равно размеру пула,
+     * поэтому вызывать после привязки свойств Hikari.
+     */
+    public DataSource admit(HikariDataSource pool) {
+        if (!enabled) {
+            return pool;
+        }
+        return new AdmissionControlledDataSource(pool, pool.getPoolName(), pool.getMaximumPoolSize(), maxWaiting,
+                acquireTimeout, meterRegistry);
+    }
+}
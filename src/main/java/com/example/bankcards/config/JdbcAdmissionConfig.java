@@ -0,0 +1,54 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Очередь допуска ({@link AdmissionControlledDataSource}) перед пулами соединений. По умолчанию включается
+ * вместе с виртуальными потоками ({@code spring.threads.virtual.enabled}). С репликой очередь ставится перед
+ * обоими пулами в {@link ReplicaDataSourceConfig}, у каждого своя; без реплики основной пул объявляется здесь,
+ * а не автоконфигурацией, чтобы обернуть его в бине {@code dataSource}.
+ * Пулы в обоих случаях остаются бинами {@link HikariDataSource}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JdbcAdmissionConfig {
+
+    @Bean
+    public JdbcAdmission jdbcAdmission(MeterRegistry meterRegistry,
+                                       @Value("${cards.jdbc-admission.enabled:false}") boolean enabled,
+                                       @Value("${cards.jdbc-admission.max-waiting:1000}") int maxWaiting,
+                                       @Value("${cards.jdbc-admission.acquire-timeout:PT5S}") Duration acquireTimeout) {
+        return new JdbcAdmission(enabled, maxWaiting, acquireTimeout, meterRegistry);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnExpression("${cards.jdbc-admission.enabled:false} and '${cards.datasource.replica.jdbc-url:}'.isEmpty()")
+    static class SingleDataSource {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                                  ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+            return HikariPools.primary(properties, connectionDetails);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary, JdbcAdmission admission) {
+            return admission.admit(primary);
+        }
+    }
+}
@@ -5,10 +5,41 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import org.springdoc.core.customizers.OpenApiCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 @OpenAPIDefinition(info = @Info(title = "Bank Card Management API", version = "v1", description = "API для управления банковскими картами"))
 @SecurityScheme(name = "bearerAuth", type = SecuritySchemeType.HTTP, bearerFormat = "JWT", scheme = "bearer")
 public class OpenApiConfig {
+
+    /**
+     * {@code GET /api/admin/cards} обслуживают два метода: постраничный и курсорный (с параметром {@code after}).
+     * springdoc сводит их в одну операцию со схемой ответа только одного из них и не поддерживает {@code oneOf}
+     * в аннотациях, поэтому ответ 200 описывается здесь как одна из двух схем.
+     */
+    @Bean
+    public OpenApiCustomizer adminCardsResponseCustomizer() {
+        return openApi -> {
+            PathItem path = openApi.getPaths() != null ? openApi.getPaths().get("/api/admin/cards") : null;
+            Operation get = path != null ? path.getGet() : null;
+            ApiResponse ok = get != null && get.getResponses() != null ? get.getResponses().get("200") : null;
+            if (ok == null) {
+                return;
+            }
+            Schema<Object> schema = new Schema<>().oneOf(List.of(
+                    new Schema<>().$ref("#/components/schemas/PagedModelCardDto"),
+                    new Schema<>().$ref("#/components/schemas/CursorPageDtoCardDto")));
+            ok.setContent(new Content().addMediaType("*/*", new MediaType().schema(schema)));
+        };
+    }
 }
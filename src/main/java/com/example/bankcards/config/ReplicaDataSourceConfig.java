@@ -0,0 +1,61 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Включается, если задан {@code cards.datasource.replica.jdbc-url}. Основной пул настраивается как обычно
+ * через {@code spring.datasource.*}, пул реплики — через {@code cards.datasource.replica.*} (свойства Hikari).
+ * Без реплики приложение работает с одним источником из автоконфигурации (или из {@link JdbcAdmissionConfig},
+ * если включена очередь допуска).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cards.datasource.replica", name = "jdbc-url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        return HikariPools.primary(properties, connectionDetails);
+    }
+
+    @Bean
+    @ConfigurationProperties("cards.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        // Запись, ошибочно попавшая в реплику, должна упасть сразу
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaStickiness replicaStickiness(@Value("${cards.datasource.sticky-window:PT5S}") Duration window,
+                                               @Value("${cards.datasource.sticky-max-users:100000}") int maxUsers) {
+        return new ReplicaStickiness(window, maxUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 @Qualifier("replicaDataSource") HikariDataSource replica,
+                                 ReplicaStickiness stickiness, JdbcAdmission admission) {
+        // Очередь допуска (если включена) у каждого пула своя: ожидание реплики не задерживает запись
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(admission.admit(primary), admission.admit(replica), stickiness));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.security.UserPrincipal;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Направляет read-only транзакции в реплику, остальное — в основную БД. Решение принимается при получении
+ * соединения, поэтому источник должен быть обернут в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * тогда соединение берется при первом запросе, когда признак read-only транзакции уже выставлен.
+ * После коммита пишущей транзакции текущий пользователь на время окна {@link ReplicaStickiness}
+ * читает из основной БД.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaStickiness stickiness;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaStickiness stickiness) {
+        this.stickiness = stickiness;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+
+        Long userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        stickiness.recordWrite(userId);
+                    }
+                });
+            }
+            return Route.PRIMARY;
+        }
+        return stickiness.isSticky(userId) ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getId()
+                : null;
+    }
+}
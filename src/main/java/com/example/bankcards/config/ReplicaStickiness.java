@@ -0,0 +1,31 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Пользователи, недавно что-то записавшие. Пока не прошло {@code window} с их последней записи,
+ * их read-only транзакции идут в основную БД: реплика могла еще не получить изменения,
+ * и пользователь не увидит, например, старый баланс сразу после перевода.
+ */
+public class ReplicaStickiness {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReplicaStickiness(Duration window, int maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isSticky(Long userId) {
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш второго уровня Hibernate для пользователей и их ролей: JCache поверх Caffeine.
+ * Регионы создаются здесь с ограничением по размеру и TTL, а не неявно Hibernate без ограничений.
+ * Запись в {@code users} или {@code user_roles} через Hibernate (в том числе bulk-UPDATE) инвалидирует
+ * и сущности, и закэшированные результаты {@code findByUsername}. Изменения в БД в обход Hibernate
+ * становятся видны только по истечении TTL.
+ */
+@Configuration
+public class UserCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String USER_ROLES_REGION = "users.roles";
+    public static final String USERS_BY_USERNAME_REGION = "users.by-username";
+
+    /** Регион запросов без явно указанного региона; Hibernate создает его всегда, когда включен кэш запросов. */
+    private static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+
+    /**
+     * Время последней записи в каждую таблицу. Его нельзя вытеснять по TTL раньше, чем истекут результаты запросов,
+     * поэтому ограничен только размер: записей здесь не больше, чем таблиц.
+     */
+    private static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${cards.user-cache.max-size:10000}") long maxSize,
+                                              @Value("${cards.user-cache.ttl:PT10M}") Duration ttl,
+                                              MeterRegistry meterRegistry) {
+        // Свой провайдер, а не общий из Caching: у каждого контекста Spring (в том числе в тестах) свои регионы
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        for (String region : List.of(USERS_REGION, USER_ROLES_REGION, USERS_BY_USERNAME_REGION, QUERY_RESULTS_REGION)) {
+            createCache(cacheManager, region, maxSize, ttl);
+        }
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, 1000, null);
+
+        for (String region : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(region));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static Cache<Object, Object> createCache(CacheManager cacheManager, String region, long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.NANOSECONDS.convert(ttl)));
+        }
+        // Счетчики попаданий и промахов для JCacheMetrics
+        configuration.setStatisticsEnabled(true);
+        return cacheManager.createCache(region, configuration);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Следит за событием JFR {@code jdk.VirtualThreadPinned}: виртуальный поток заблокировался, не отпустив
+ * несущий поток (synchronized в драйвере или библиотеке, нативный кадр на стеке). Длительность каждого
+ * закрепления пишется в таймер {@code jvm.threads.virtual.pinned}, а каждое новое место закрепления
+ * (стек) — один раз в лог с уровнем WARN; повторы того же места — в DEBUG.
+ * Работает только в режиме виртуальных потоков.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(prefix = "cards.virtual-threads.pinning", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final Duration threshold;
+    private final int stackDepth;
+    private final int maxSites;
+    private final Timer pinned;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream stream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${cards.virtual-threads.pinning.threshold:PT0.02S}") Duration threshold,
+                                       @Value("${cards.virtual-threads.pinning.stack-depth:16}") int stackDepth,
+                                       @Value("${cards.virtual-threads.pinning.max-sites:100}") int maxSites) {
+        this.threshold = threshold;
+        this.stackDepth = stackDepth;
+        this.maxSites = maxSites;
+        this.pinned = meterRegistry.timer("jvm.threads.virtual.pinned");
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        // События читаются сразу, хранить их в репозитории JFR дольше не нужно
+        recording.setMaxAge(Duration.ofMinutes(1));
+        recording.onEvent(PINNED_EVENT, this::onEvent);
+        recording.startAsync();
+        stream = recording;
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onEvent(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        pinned(event.getDuration(), frames.stream()
+                .limit(stackDepth)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + "(line " + frame.getLineNumber() + ")")
+                .toList());
+    }
+
+    /**
+     * Учитывает одно закрепление; {@code frames} — верхние кадры стека, начиная с места блокировки.
+     */
+    void pinned(Duration duration, List<String> frames) {
+        pinned.record(duration);
+        String site = frames.isEmpty() ? "<стек недоступен>" : String.join("\n\tat ", frames);
+        // Число мест ограничено, чтобы поток событий от разных стеков не раздувал память и лог
+        if (reportedSites.size() < maxSites && reportedSites.add(site)) {
+            log.warn("Виртуальный поток закреплен за несущим потоком на {} мс:\n\tat {}", duration.toMillis(), site);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Виртуальный поток закреплен за несущим потоком на {} мс:\n\tat {}", duration.toMillis(), site);
+        }
+    }
+}
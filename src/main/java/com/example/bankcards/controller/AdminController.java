@@ -1,21 +1,50 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BlockApprovalRequestDto;
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.BulkStatusChangeRequestDto;
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardLookupRequestDto;
+import com.example.bankcards.dto.CardSearchFilterDto;
 import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.PendingBlockClaimDto;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardBlockQueueService;
+import com.example.bankcards.service.CardExportFormat;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardImportService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStatusBulkService;
+import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("api/admin")
@@ -24,10 +53,22 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
 
     private final CardService cardService;
+    private final CardExportService cardExportService;
+    private final CardImportService cardImportService;
+    private final CardStatusBulkService cardStatusBulkService;
+    private final CardBlockQueueService cardBlockQueueService;
+    private final UserService userService;
 
     @Autowired
-    public AdminController(CardService cardService) {
+    public AdminController(CardService cardService, CardExportService cardExportService,
+                           CardImportService cardImportService, CardStatusBulkService cardStatusBulkService,
+                           CardBlockQueueService cardBlockQueueService, UserService userService) {
         this.cardService = cardService;
+        this.cardExportService = cardExportService;
+        this.cardImportService = cardImportService;
+        this.cardStatusBulkService = cardStatusBulkService;
+        this.cardBlockQueueService = cardBlockQueueService;
+        this.userService = userService;
     }
 
     @Operation(summary = "Создание новой банковской карты", description = "Создает новую карту для указанного пользователя")
@@ -35,6 +76,7 @@ public class AdminController {
     @ApiResponse(responseCode = "400", description = "Ошибка валидации данных")
     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
     @ApiResponse(responseCode = "404", description = "Пользователь с указанным id не найден")
+    @ApiResponse(responseCode = "409", description = "Карта с таким номером уже существует")
     @PostMapping("/cards")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CardDto> createCard(@Valid @RequestBody CreateCardRequestDto createCardRequestDto) {
@@ -42,15 +84,101 @@ public class AdminController {
         return new ResponseEntity<>(newCard, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Получить список всех карт", description = "Возвращает постраничный список всех карт в системе")
-    @ApiResponse(responseCode = "200", description = "Успешное получение списка карт")
+    @Operation(summary = "Массовое создание карт", description = "Создает карты из JSON-массива в формате запроса " +
+            "создания карты. Строки проверяются независимо, по каждой возвращается результат: id созданной карты или ошибка")
+    @ApiResponse(responseCode = "200", description = "Импорт выполнен, результат по каждой строке")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @ApiResponse(responseCode = "413", description = "Слишком много строк в одном запросе")
+    @PostMapping(value = "/cards/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkImportResultDto> importCards(@RequestBody List<CreateCardRequestDto> requests) {
+        return ResponseEntity.ok(cardImportService.importCards(requests));
+    }
+
+    @Operation(summary = "Массовое создание карт из CSV", description = "Создает карты из CSV с колонками " +
+            "userId,cardNumber,expiryDate (строка заголовка необязательна). По каждой строке возвращается результат")
+    @ApiResponse(responseCode = "200", description = "Импорт выполнен, результат по каждой строке")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @ApiResponse(responseCode = "413", description = "Слишком много строк в одном запросе")
+    @PostMapping(value = "/cards/bulk", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkImportResultDto> importCardsCsv(@RequestBody String csv) {
+        return ResponseEntity.ok(cardImportService.importCardsCsv(csv));
+    }
+
+    @Operation(summary = "Получить список всех карт", description = "Возвращает постраничный список всех карт в системе " +
+            "с общим числом карт. С параметром after включается курсорный режим: карты с id больше after по возрастанию id " +
+            "без подсчета общего числа, курсор следующей страницы возвращается в nextCursor (на последней странице null). " +
+            "Параметр fields (имена полей карты через запятую) ограничивает поля в ответе")
+    @Parameter(name = "after", in = ParameterIn.QUERY, description = "Курсор: id последней карты предыдущей страницы",
+            schema = @Schema(type = "integer", format = "int64"))
+    @ApiResponse(responseCode = "200", description = "Без after — страница карт (PagedModelCardDto), " +
+            "с after — карты после курсора и курсор следующей страницы (CursorPageDtoCardDto)")
+    @ApiResponse(responseCode = "400", description = "Неизвестное поле в fields или некорректный курсор")
     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
     @GetMapping("/cards")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<CardDto>> getAllCards(@RequestParam(defaultValue = "0") int page,
-                                                     @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<PagedModel<CardDto>> getAllCards(@RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "10") int size,
+                                                           @RequestParam(required = false) String fields) {
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(cardService.getAllCards(pageable));
+        return ResponseEntity.ok(new PagedModel<>(cardService.getAllCards(CardField.parse(fields), pageable)));
+    }
+
+    /**
+     * Курсорный режим {@link #getAllCards}. В OpenAPI у пути и метода может быть только одна операция,
+     * поэтому оба режима описаны там, а схему ответа для обоих задает {@link com.example.bankcards.config.OpenApiConfig}.
+     */
+    @Operation(hidden = true)
+    @GetMapping(value = "/cards", params = "after")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDto<CardDto>> getAllCardsAfter(@RequestParam long after,
+                                                                   @RequestParam(defaultValue = "10") int size,
+                                                                   @RequestParam(required = false) String fields) {
+        Slice<CardDto> cards = cardService.getAllCardsAfter(after, CardField.parse(fields), size);
+        String nextCursor = cards.hasNext() ? String.valueOf(cards.getContent().get(cards.getNumberOfElements() - 1).getId()) : null;
+        return ResponseEntity.ok(new CursorPageDto<>(cards.getContent(), nextCursor));
+    }
+
+    @Operation(summary = "Поиск карт", description = "Постраничный поиск карт по статусу, диапазону срока действия, " +
+            "владельцу и диапазону баланса. Незаданные фильтры не применяются, границы диапазонов включительные")
+    @ApiResponse(responseCode = "200", description = "Успешное получение списка карт")
+    @ApiResponse(responseCode = "400", description = "Некорректное значение фильтра")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @GetMapping("/cards/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PagedModel<CardDto>> searchCards(@ParameterObject CardSearchFilterDto filter,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(new PagedModel<>(cardService.searchCards(filter, PageRequest.of(page, size))));
+    }
+
+    @Operation(summary = "Выгрузка всех карт", description = "Потоково выгружает все карты в порядке id в формате NDJSON " +
+            "(по объекту на строку) или CSV. Номера карт маскируются, ответ пишется по мере чтения из базы")
+    @ApiResponse(responseCode = "200", description = "Выгрузка начата")
+    @ApiResponse(responseCode = "400", description = "Неизвестный формат")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @GetMapping("/cards/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCards(@RequestParam(defaultValue = "NDJSON") CardExportFormat format) {
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("cards." + format.getFileExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(out -> cardExportService.exportCards(format, out));
+    }
+
+    @Operation(summary = "Найти карту по номеру", description = "Ищет карту по полному номеру через индекс отпечатков, без расшифровки таблицы")
+    @ApiResponse(responseCode = "200", description = "Карта найдена")
+    @ApiResponse(responseCode = "400", description = "Ошибка валидации данных")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @ApiResponse(responseCode = "404", description = "Карта не найдена")
+    @PostMapping("/cards/lookup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> findCardByNumber(@Valid @RequestBody CardLookupRequestDto cardLookupRequestDto) {
+        return ResponseEntity.ok(cardService.findCardByNumber(cardLookupRequestDto.getCardNumber()));
     }
 
     @Operation(summary = "Заблокировать карту", description = "Подтверждает блокировку карты, переводит в статус BLOCKED")
@@ -75,7 +203,66 @@ public class AdminController {
         return ResponseEntity.ok(cardService.activateCardByAdmin(id));
     }
 
-    @Operation(summary = "Удалить карту", description = "Удаляет карту из системы")
+    @Operation(summary = "Массовая блокировка карт", description = "Переводит в статус BLOCKED карты из списка id " +
+            "или все карты по фильтру поиска. Карты обрабатываются порциями, в ответе id измененных карт и отклоненные id с причиной")
+    @ApiResponse(responseCode = "200", description = "Блокировка выполнена, результат по каждой карте")
+    @ApiResponse(responseCode = "400", description = "Не указан ни список id, ни фильтр, или указаны оба")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @PatchMapping("/cards/bulk/block")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusChangeResultDto> blockCards(@Valid @RequestBody BulkStatusChangeRequestDto request) {
+        return ResponseEntity.ok(cardStatusBulkService.changeStatus(CardStatusTransition.BLOCK, request));
+    }
+
+    @Operation(summary = "Массовая активация карт", description = "Переводит заблокированные карты из списка id " +
+            "или по фильтру поиска в статус ACTIVE. В ответе id измененных карт и отклоненные id с причиной")
+    @ApiResponse(responseCode = "200", description = "Активация выполнена, результат по каждой карте")
+    @ApiResponse(responseCode = "400", description = "Не указан ни список id, ни фильтр, или указаны оба")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @PatchMapping("/cards/bulk/activate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusChangeResultDto> activateCards(@Valid @RequestBody BulkStatusChangeRequestDto request) {
+        return ResponseEntity.ok(cardStatusBulkService.changeStatus(CardStatusTransition.ACTIVATE, request));
+    }
+
+    @Operation(summary = "Очередь заявок на блокировку", description = "Карты в статусе PENDING_BLOCK по возрастанию id. " +
+            "Курсор следующей страницы возвращается в nextCursor и передается в параметре after")
+    @ApiResponse(responseCode = "200", description = "Успешное получение очереди")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @GetMapping("/cards/pending-block")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDto<CardDto>> getPendingBlocks(@RequestParam(defaultValue = "0") long after,
+                                                                   @RequestParam(defaultValue = "10") int size) {
+        Slice<CardDto> cards = cardBlockQueueService.getPendingBlocks(after, size);
+        String nextCursor = cards.hasNext() ? String.valueOf(cards.getContent().get(cards.getNumberOfElements() - 1).getId()) : null;
+        return ResponseEntity.ok(new CursorPageDto<>(cards.getContent(), nextCursor));
+    }
+
+    @Operation(summary = "Взять заявки на блокировку в работу", description = "Берет до size свободных заявок в аренду " +
+            "текущему администратору. Параллельные вызовы получают разные карты, по истечении аренды заявки возвращаются в очередь")
+    @ApiResponse(responseCode = "200", description = "Заявки взяты в работу, список может быть пустым")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @PostMapping("/cards/pending-block/claim")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PendingBlockClaimDto> claimPendingBlocks(@AuthenticationPrincipal UserPrincipal principal,
+                                                                   @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(cardBlockQueueService.claimPendingBlocks(principal.getId(), size));
+    }
+
+    @Operation(summary = "Подтвердить блокировку взятых карт", description = "Переводит в BLOCKED карты, взятые в работу " +
+            "текущим администратором, пока не истекла аренда. В ответе id заблокированных карт и отклоненные id с причиной")
+    @ApiResponse(responseCode = "200", description = "Подтверждение выполнено, результат по каждой карте")
+    @ApiResponse(responseCode = "400", description = "Ошибка валидации данных")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @PostMapping("/cards/pending-block/approve")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusChangeResultDto> approveBlocks(@AuthenticationPrincipal UserPrincipal principal,
+                                                                   @Valid @RequestBody BlockApprovalRequestDto request) {
+        return ResponseEntity.ok(cardBlockQueueService.approveBlocks(principal.getId(), request.getIds()));
+    }
+
+    @Operation(summary = "Удалить карту", description = "Помечает карту удаленной: она сразу перестает быть видна " +
+            "и доступна для операций, а физически удаляется фоновой очисткой")
     @ApiResponse(responseCode = "204", description = "Карта успешно удалена")
     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
     @ApiResponse(responseCode = "404", description = "Карта не найдена")
@@ -85,4 +272,15 @@ public class AdminController {
         cardService.deleteCardByAdmin(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Отозвать токены пользователя", description = "Делает недействительными все ранее выданные пользователю JWT токены")
+    @ApiResponse(responseCode = "204", description = "Токены успешно отозваны")
+    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    @PostMapping("/users/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
 }
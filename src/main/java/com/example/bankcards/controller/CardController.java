@@ -2,7 +2,12 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.BalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,10 +18,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Set;
 
 @RestController
 @RequestMapping("api/cards")
@@ -24,6 +37,13 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "bearerAuth")
 public class CardController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String TRANSFER_ID_HEADER = "Transfer-Id";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** Клиент может хранить ответ у себя, но перед использованием обязан перепроверить его по ETag. */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final CardService cardService;
 
     @Autowired
@@ -31,19 +51,32 @@ public class CardController {
         this.cardService = cardService;
     }
 
-    @Operation(summary = "Получить список своих карт", description = "Возвращает постраничный список карт, принадлежащих текущему пользователю")
+    @Operation(summary = "Получить список своих карт", description = "Возвращает постраничный список карт, принадлежащих текущему пользователю, " +
+            "по возрастанию id. Параметр fields (имена полей карты через запятую) ограничивает поля в ответе. " +
+            "Ответ содержит ETag; с заголовком If-None-Match неизменившийся список возвращается как 304 без тела")
     @ApiResponse(responseCode = "200", description = "Успешное получение списка карт")
+    @ApiResponse(responseCode = "304", description = "Список не изменился с указанного ETag")
+    @ApiResponse(responseCode = "400", description = "Неизвестное поле в fields")
     @ApiResponse(responseCode = "403", description = "Доступ запрещен (неверный токен)")
     @GetMapping
-    @PreAuthorize("hasrole('USER')")
-    public ResponseEntity<Page<CardDto>> getUserCards(Authentication authentication, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<PagedModel<CardDto>> getUserCards(@AuthenticationPrincipal UserPrincipal principal, @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(required = false) String fields, WebRequest request) {
+
+        Set<CardField> cardFields = CardField.parse(fields);
 
-        String username = authentication.getName();
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<CardDto> cards = cardService.getCardsByUsername(username, pageable);
+        // ETag сверяется до запроса карт: 304 стоит одного чтения версии по первичному ключу
+        String eTag = cardService.getUserCardsETag(principal.getId(), cardFields, pageable);
+        if (ifNoneMatch(request, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+        }
 
-        return ResponseEntity.ok(cards);
+        // Версия прочитана раньше карт, поэтому ETag не новее ответа и устаревший 304 невозможен
+        Page<CardDto> cards = cardService.getUserCards(principal.getId(), cardFields, pageable);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(new PagedModel<>(cards));
     }
 
     @Operation(summary = "Запросить блокировку своей карты", description = "Устанавливает статус карты на PENDING_BLOCK. Выполнить можно только для своей активной карты")
@@ -53,36 +86,78 @@ public class CardController {
     @ApiResponse(responseCode = "500", description = "Внутренняя ошибка")
     @PatchMapping("/{id}/request-block")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<CardDto> blockMyCard(@PathVariable("id") Long cardId, Authentication authentication) {
-        String username = authentication.getName();
-        CardDto updatedCard = cardService.requestCardBlock(cardId, username);
+    public ResponseEntity<CardDto> blockMyCard(@PathVariable("id") Long cardId, @AuthenticationPrincipal UserPrincipal principal) {
+        CardDto updatedCard = cardService.requestCardBlock(cardId, principal.getId());
         return ResponseEntity.ok(updatedCard);
     }
 
-    @Operation(summary = "Перевод средств между своими картами", description = "Выполняет перевод с одной своей карты на другую")
-    @ApiResponse(responseCode = "200", description = "Перевод выполнен успешно")
+    @Operation(summary = "Перевод средств между своими картами", description = "Выполняет перевод с одной своей карты на другую. " +
+            "Повтор запроса с тем же заголовком Idempotency-Key не двигает деньги повторно, а возвращает результат исходного перевода")
+    @ApiResponse(responseCode = "204", description = "Перевод выполнен успешно, id перевода в заголовке Transfer-Id")
     @ApiResponse(responseCode = "400", description = "Некорректные данные")
+    @ApiResponse(responseCode = "422", description = "Ключ идемпотентности уже использован для другого перевода")
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Void> transferMoney(
             @Valid @RequestBody TransferRequestDto transferRequestDto,
-            Authentication authentication) {
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserPrincipal principal) {
 
-        String username = authentication.getName();
-        cardService.transferMoney(transferRequestDto, username);
+        TransferDto transfer = cardService.transferMoney(transferRequestDto, principal.getId(), idempotencyKey);
 
-        return ResponseEntity.noContent().build();
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                .header(TRANSFER_ID_HEADER, String.valueOf(transfer.getId()));
+        if (transfer.isReplayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.build();
     }
 
-    @Operation(summary = "Получить баланс своей карты", description = "Возвращает текущий баланс для указанной карты. Доступно только для своих карт")
+    @Operation(summary = "Получить баланс своей карты", description = "Возвращает текущий баланс для указанной карты. Доступно только для своих карт. " +
+            "Ответ содержит ETag; с заголовком If-None-Match неизменившийся баланс возвращается как 304 без тела")
     @ApiResponse(responseCode = "200", description = "Баланс успешно получен")
+    @ApiResponse(responseCode = "304", description = "Баланс не изменился с указанного ETag")
     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
     @ApiResponse(responseCode = "404", description = "Карта не найдена")
     @GetMapping("/{id}/balance")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<BalanceDto> getBalance(@PathVariable Long id, Authentication authentication) {
-        String username = authentication.getName();
-        return ResponseEntity.ok(cardService.getCardBalance(id, username));
+    public ResponseEntity<BalanceDto> getBalance(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal principal) {
+        // Баланс и его версия берутся из кэша с проверкой владельца; If-None-Match сверяет Spring MVC
+        BalanceDto balance = cardService.getCardBalance(id, principal.getId());
+        return ResponseEntity.ok().eTag(balance.getVersion()).cacheControl(REVALIDATE).body(balance);
     }
 
+    @Operation(summary = "История переводов по своей карте", description = "Возвращает движения по карте от новых к старым. " +
+            "Для следующей страницы передайте nextCursor из предыдущего ответа в параметре cursor")
+    @ApiResponse(responseCode = "200", description = "История успешно получена")
+    @ApiResponse(responseCode = "400", description = "Некорректный курсор")
+    @ApiResponse(responseCode = "404", description = "Карта не найдена")
+    @GetMapping("/{id}/transfers")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CursorPageDto<CardTransferDto>> getCardTransfers(@PathVariable Long id,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(defaultValue = "20") int size,
+                                                                           @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(cardService.getCardTransfers(id, principal.getId(), cursor, size));
+    }
+
+    /**
+     * Сверка с If-None-Match без {@link WebRequest#checkNotModified}: тот сам пишет заголовки ответа,
+     * а здесь их выставляет {@link ResponseEntity}.
+     */
+    private static boolean ifNoneMatch(WebRequest request, String eTag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        ETag current = ETag.create(eTag);
+        for (String value : values) {
+            for (ETag requested : ETag.parse(value)) {
+                if (requested.isWildcard() || requested.compare(current, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
@@ -1,10 +1,18 @@
 package com.example.bankcards.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
 import java.math.BigDecimal;
 
 public class BalanceDto {
     private BigDecimal balance;
 
+    /** Версия баланса для ETag, в тело ответа не попадает. */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private String version;
+
     public BalanceDto() {
     }
 
@@ -15,4 +23,12 @@ public class BalanceDto {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
 }
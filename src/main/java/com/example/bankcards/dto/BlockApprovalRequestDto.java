@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BlockApprovalRequestDto {
+
+    @NotEmpty(message = "Нужно указать id карт")
+    @Size(max = 500, message = "За один запрос можно подтвердить не больше 500 карт")
+    private List<Long> ids;
+
+    public BlockApprovalRequestDto() {
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
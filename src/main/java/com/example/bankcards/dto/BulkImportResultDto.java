@@ -0,0 +1,53 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+
+public class BulkImportResultDto {
+
+    private int total;
+    private int created;
+    private int failed;
+    private List<BulkImportRowResultDto> rows;
+
+    public BulkImportResultDto() {
+    }
+
+    public BulkImportResultDto(List<BulkImportRowResultDto> rows) {
+        this.rows = rows;
+        this.total = rows.size();
+        this.created = (int) rows.stream().filter(row -> row.getStatus() == BulkImportRowResultDto.Status.CREATED).count();
+        this.failed = total - created;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkImportRowResultDto> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<BulkImportRowResultDto> rows) {
+        this.rows = rows;
+    }
+}
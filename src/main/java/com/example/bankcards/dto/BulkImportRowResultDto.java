@@ -0,0 +1,79 @@
+package com.example.bankcards.dto;
+
+/**
+ * Результат импорта одной строки. {@code row} — номер строки во входных данных (с единицы),
+ * для CSV считая строку заголовка.
+ */
+public class BulkImportRowResultDto {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    private int row;
+    private Status status;
+    private Long cardId;
+    private String maskedCardNumber;
+    private String error;
+
+    public BulkImportRowResultDto() {
+    }
+
+    public static BulkImportRowResultDto created(int row, Long cardId, String maskedCardNumber) {
+        BulkImportRowResultDto result = new BulkImportRowResultDto();
+        result.setRow(row);
+        result.setStatus(Status.CREATED);
+        result.setCardId(cardId);
+        result.setMaskedCardNumber(maskedCardNumber);
+        return result;
+    }
+
+    public static BulkImportRowResultDto failed(int row, String error) {
+        BulkImportRowResultDto result = new BulkImportRowResultDto();
+        result.setRow(row);
+        result.setStatus(Status.FAILED);
+        result.setError(error);
+        return result;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+
+    public String getMaskedCardNumber() {
+        return maskedCardNumber;
+    }
+
+    public void setMaskedCardNumber(String maskedCardNumber) {
+        this.maskedCardNumber = maskedCardNumber;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
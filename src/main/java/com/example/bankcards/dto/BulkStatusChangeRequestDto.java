@@ -0,0 +1,43 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+
+import java.util.List;
+
+/**
+ * Карты для массовой смены статуса: либо явный список id, либо фильтр как в поиске карт.
+ */
+public class BulkStatusChangeRequestDto {
+
+    private List<Long> ids;
+
+    private CardSearchFilterDto filter;
+
+    public BulkStatusChangeRequestDto() {
+    }
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Нужно указать либо список id, либо фильтр")
+    public boolean isTargetSpecified() {
+        return (ids != null) != (filter != null);
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public CardSearchFilterDto getFilter() {
+        return filter;
+    }
+
+    public void setFilter(CardSearchFilterDto filter) {
+        this.filter = filter;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат массовой смены статуса: id карт, переведенных в {@code status},
+ * и отклоненные id с причиной.
+ */
+public class BulkStatusChangeResultDto {
+
+    private CardStatus status;
+    private List<Long> changed = new ArrayList<>();
+    private List<Rejection> rejected = new ArrayList<>();
+
+    public BulkStatusChangeResultDto() {
+    }
+
+    public BulkStatusChangeResultDto(CardStatus status) {
+        this.status = status;
+    }
+
+    public CardStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CardStatus status) {
+        this.status = status;
+    }
+
+    public List<Long> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<Long> changed) {
+        this.changed = changed;
+    }
+
+    public List<Rejection> getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(List<Rejection> rejected) {
+        this.rejected = rejected;
+    }
+
+    public static class Rejection {
+
+        private Long id;
+        private String reason;
+
+        public Rejection() {
+        }
+
+        public Rejection(Long id, String reason) {
+            this.id = id;
+            this.reason = reason;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.exception.InvalidFieldsException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Поля {@link CardDto}, которые можно запросить параметром {@code fields}. Каждое поле само пишет свое
+ * значение в {@link JsonGenerator}; порядок констант задает порядок полей в JSON.
+ */
+public enum CardField {
+
+    ID("id") {
+        @Override
+        void writeValue(CardDto card, JsonGenerator generator) throws IOException {
+            if (card.getId() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(card.getId());
+            }
+        }
+    },
+    MASKED_CARD_NUMBER("maskedCardNumber") {
+        @Override
+        void writeValue(CardDto card, JsonGenerator generator) throws IOException {
+            generator.writeString(card.getMaskedCardNumber());
+        }
+    },
+    EXPIRY_DATE("expiryDate") {
+        @Override
+        void writeValue(CardDto card, JsonGenerator generator) throws IOException {
+            // ISO-8601, как и у остальных дат в ответах (WRITE_DATES_AS_TIMESTAMPS выключен)
+            LocalDate expiryDate = card.getExpiryDate();
+            generator.writeString(expiryDate != null ? expiryDate.toString() : null);
+        }
+    },
+    STATUS("status") {
+        @Override
+        void writeValue(CardDto card, JsonGenerator generator) throws IOException {
+            generator.writeString(card.getStatus());
+        }
+    },
+    BALANCE("balance") {
+        @Override
+        void writeValue(CardDto card, JsonGenerator generator) throws IOException {
+            generator.writeNumber(card.getBalance());
+        }
+    };
+
+    public static final Set<CardField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CardField.class));
+
+    private final String name;
+    /** Имя, уже закодированное для JSON: на странице из тысяч карт не кодируется заново для каждой. */
+    private final SerializedString jsonName;
+
+    CardField(String name) {
+        this.name = name;
+        this.jsonName = new SerializedString(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void write(CardDto card, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(jsonName);
+        writeValue(card, generator);
+    }
+
+    abstract void writeValue(CardDto card, JsonGenerator generator) throws IOException;
+
+    /**
+     * Разбирает значение параметра {@code fields}: имена полей через запятую. Пустое значение — все поля.
+     */
+    public static Set<CardField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<CardField> parsed = EnumSet.noneOf(CardField.class);
+        for (String name : fields.split(",")) {
+            parsed.add(byName(name.trim()));
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    private static CardField byName(String name) {
+        for (CardField field : values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new InvalidFieldsException("Неизвестное поле карты: " + name);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class CardLookupRequestDto {
+
+    @NotBlank(message = "Требуется номер карты")
+    @Size(min = 16, max = 16, message = "номер карты должен состоять из 16 цифр")
+    private String cardNumber;
+
+    public CardLookupRequestDto() {
+    }
+
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public void setCardNumber(String cardNumber) {
+        this.cardNumber = cardNumber;
+    }
+}
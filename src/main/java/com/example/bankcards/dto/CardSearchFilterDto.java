@@ -0,0 +1,79 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Фильтры поиска карт администратором. Незаполненные поля не ограничивают выборку,
+ * границы диапазонов включительные.
+ */
+public class CardSearchFilterDto {
+
+    private CardStatus status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate expiresFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate expiresTo;
+
+    private Long ownerId;
+
+    private BigDecimal minBalance;
+
+    private BigDecimal maxBalance;
+
+    public CardSearchFilterDto() {
+    }
+
+    public CardStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CardStatus status) {
+        this.status = status;
+    }
+
+    public LocalDate getExpiresFrom() {
+        return expiresFrom;
+    }
+
+    public void setExpiresFrom(LocalDate expiresFrom) {
+        this.expiresFrom = expiresFrom;
+    }
+
+    public LocalDate getExpiresTo() {
+        return expiresTo;
+    }
+
+    public void setExpiresTo(LocalDate expiresTo) {
+        this.expiresTo = expiresTo;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public BigDecimal getMinBalance() {
+        return minBalance;
+    }
+
+    public void setMinBalance(BigDecimal minBalance) {
+        this.minBalance = minBalance;
+    }
+
+    public BigDecimal getMaxBalance() {
+        return maxBalance;
+    }
+
+    public void setMaxBalance(BigDecimal maxBalance) {
+        this.maxBalance = maxBalance;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class CardTransferDto {
+
+    private Long transferId;
+    private Long counterpartyCardId;
+    private BigDecimal amount;
+    private Instant createdAt;
+
+    public CardTransferDto() {
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(Long transferId) {
+        this.transferId = transferId;
+    }
+
+    public Long getCounterpartyCardId() {
+        return counterpartyCardId;
+    }
+
+    public void setCounterpartyCardId(Long counterpartyCardId) {
+        this.counterpartyCardId = counterpartyCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+
+/**
+ * Страница курсорной пагинации. {@code nextCursor} передается в следующий запрос,
+ * {@code null} означает, что страниц больше нет. Общее число элементов не считается.
+ */
+public class CursorPageDto<T> {
+
+    private List<T> content;
+    private String nextCursor;
+
+    public CursorPageDto() {
+    }
+
+    public CursorPageDto(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
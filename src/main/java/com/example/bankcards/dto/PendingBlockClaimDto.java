@@ -0,0 +1,38 @@
+package com.example.bankcards.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Заявки на блокировку, взятые администратором в работу. До {@code claimedUntil}
+ * другие администраторы эти карты не получат, подтвердить блокировку может только взявший их.
+ */
+public class PendingBlockClaimDto {
+
+    private List<CardDto> cards;
+    private Instant claimedUntil;
+
+    public PendingBlockClaimDto() {
+    }
+
+    public PendingBlockClaimDto(List<CardDto> cards, Instant claimedUntil) {
+        this.cards = cards;
+        this.claimedUntil = claimedUntil;
+    }
+
+    public List<CardDto> getCards() {
+        return cards;
+    }
+
+    public void setCards(List<CardDto> cards) {
+        this.cards = cards;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
@@ -1,23 +1,37 @@
 package com.example.bankcards.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 
 
+/**
+ * Удаленные карты ({@code deleted_at} заполнен) не видны ни одному запросу через JPA,
+ * физически их удаляет {@link com.example.bankcards.job.CardPurgeJob}.
+ */
 @Entity
 @Table(name = "cards")
+@SQLRestriction("deleted_at is null")
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @Column(name = "cardNumber")
     private String cardNumber;
 
+    @Column(name = "lastFour", length = 4)
+    private String lastFour;
+
+    @Column(name = "cardFingerprint", length = 64)
+    private String cardFingerprint;
+
     @Column(name = "expiryDate")
     private LocalDate expiryDate;
 
@@ -32,6 +46,15 @@ public class Card {
     @Column(name = "status", nullable = false)
     private CardStatus status;
 
+    @Column(name = "blockClaimedBy")
+    private Long blockClaimedBy;
+
+    @Column(name = "blockClaimedUntil")
+    private Instant blockClaimedUntil;
+
+    @Column(name = "deletedAt")
+    private Instant deletedAt;
+
 
     public Card() {
     }
@@ -52,6 +75,22 @@ public class Card {
         this.cardNumber = cardNumber;
     }
 
+    public String getLastFour() {
+        return lastFour;
+    }
+
+    public void setLastFour(String lastFour) {
+        this.lastFour = lastFour;
+    }
+
+    public String getCardFingerprint() {
+        return cardFingerprint;
+    }
+
+    public void setCardFingerprint(String cardFingerprint) {
+        this.cardFingerprint = cardFingerprint;
+    }
+
     public LocalDate getExpiryDate() {
         return expiryDate;
     }
@@ -83,4 +122,28 @@ public class Card {
     public void setStatus(CardStatus status) {
         this.status = status;
     }
+
+    public Long getBlockClaimedBy() {
+        return blockClaimedBy;
+    }
+
+    public void setBlockClaimedBy(Long blockClaimedBy) {
+        this.blockClaimedBy = blockClaimedBy;
+    }
+
+    public Instant getBlockClaimedUntil() {
+        return blockClaimedUntil;
+    }
+
+    public void setBlockClaimedUntil(Instant blockClaimedUntil) {
+        this.blockClaimedUntil = blockClaimedUntil;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
@@ -0,0 +1,42 @@
+package com.example.bankcards.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Переходы статуса карты, которые выполняет администратор: целевой статус и статусы,
+ * из которых переход допустим. Те же правила, что в блокировке и активации одной карты.
+ */
+public enum CardStatusTransition {
+
+    BLOCK(CardStatus.BLOCKED, EnumSet.of(CardStatus.ACTIVE, CardStatus.PENDING_BLOCK, CardStatus.EXPIRED),
+            "Карта уже заблокирована"),
+    ACTIVATE(CardStatus.ACTIVE, EnumSet.of(CardStatus.BLOCKED),
+            "Активировать можно только заблокированную карту");
+
+    private final CardStatus target;
+    private final Set<CardStatus> from;
+    private final String rejectionMessage;
+
+    CardStatusTransition(CardStatus target, Set<CardStatus> from, String rejectionMessage) {
+        this.target = target;
+        this.from = from;
+        this.rejectionMessage = rejectionMessage;
+    }
+
+    public CardStatus getTarget() {
+        return target;
+    }
+
+    public Set<CardStatus> getFrom() {
+        return from;
+    }
+
+    public boolean isAllowedFrom(CardStatus status) {
+        return from.contains(status);
+    }
+
+    public String getRejectionMessage() {
+        return rejectionMessage;
+    }
+}
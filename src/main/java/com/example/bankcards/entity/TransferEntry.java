@@ -0,0 +1,96 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Движение средств по одной карте в рамках перевода: списание с отрицательной суммой,
+ * зачисление с положительной. На каждый перевод приходится две строки.
+ */
+@Entity
+@Table(name = "transfer_entries")
+public class TransferEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_entries_seq")
+    @SequenceGenerator(name = "transfer_entries_seq", sequenceName = "transfer_entries_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "transferId", nullable = false, updatable = false)
+    private Long transferId;
+
+    @Column(name = "cardId", nullable = false, updatable = false)
+    private Long cardId;
+
+    @Column(name = "counterpartyCardId", nullable = false, updatable = false)
+    private Long counterpartyCardId;
+
+    @Column(name = "amount", nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private Instant createdAt;
+
+
+    public TransferEntry() {
+    }
+
+    public TransferEntry(Long transferId, Long cardId, Long counterpartyCardId, BigDecimal amount, Instant createdAt) {
+        this.transferId = transferId;
+        this.cardId = cardId;
+        this.counterpartyCardId = counterpartyCardId;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(Long transferId) {
+        this.transferId = transferId;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+
+    public Long getCounterpartyCardId() {
+        return counterpartyCardId;
+    }
+
+    public void setCounterpartyCardId(Long counterpartyCardId) {
+        this.counterpartyCardId = counterpartyCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.config.UserCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheConfig.USERS_REGION)
 public class User {
 
     @Id
@@ -26,11 +32,24 @@ public class User {
     private String lastName;
 
     @ElementCollection(targetClass = Role.class, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheConfig.USER_ROLES_REGION)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false)
     private Set<Role> roles;
 
+    @Column(name = "tokenVersion", nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Версия карт пользователя для ETag списка карт. Меняется только SQL-запросом из
+     * {@link com.example.bankcards.service.CardVersionRegistry} и читается только запросами, поэтому
+     * сущностью не пишется, а значение в закэшированной сущности может быть устаревшим.
+     */
+    @ColumnDefault("0")
+    @Column(name = "cardsVersion", nullable = false, insertable = false, updatable = false)
+    private long cardsVersion;
+
     public User() {
     }
 
@@ -89,4 +108,12 @@ public class User {
     public void setRoles(Set<Role> roles) {
         this.roles = roles;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
@@ -0,0 +1,119 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardFingerprintUtil;
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Заполняет производные колонки карт, созданных до их появления (last_four, card_fingerprint),
+ * чтобы выдача списков и поиск по номеру не расшифровывали таблицу. Идет по id пачками, каждая пачка — в своей транзакции.
+ */
+@Component
+public class CardBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CardBackfillJob.class);
+
+    private final CardRepository cardRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final CardFingerprintUtil cardFingerprintUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private volatile boolean completed;
+
+    @Autowired
+    public CardBackfillJob(CardRepository cardRepository,
+                           EncryptionUtil encryptionUtil,
+                           CardFingerprintUtil cardFingerprintUtil,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${cards.backfill.batch-size:500}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.cardFingerprintUtil = cardFingerprintUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${cards.backfill.initial-delay:10000}", fixedDelayString = "${cards.backfill.delay:600000}")
+    public void run() {
+        if (completed) {
+            return;
+        }
+
+        long lastId = 0;
+        int processed = 0;
+        while (true) {
+            long afterId = lastId;
+            BatchResult result = transactionTemplate.execute(status -> processBatch(afterId));
+            if (result == null || result.size() == 0) {
+                break;
+            }
+            lastId = result.lastId();
+            processed += result.size();
+        }
+
+        if (processed > 0) {
+            log.info("Заполнены производные колонки для {} карт", processed);
+        }
+        completed = true;
+    }
+
+    private BatchResult processBatch(long afterId) {
+        List<Card> cards = cardRepository.findBackfillBatch(afterId, PageRequest.of(0, batchSize));
+
+        Map<Card, String> cardNumbers = new LinkedHashMap<>();
+        Map<Card, String> fingerprints = new HashMap<>();
+        for (Card card : cards) {
+            try {
+                String cardNumber = encryptionUtil.decrypt(card.getCardNumber());
+                cardNumbers.put(card, cardNumber);
+                if (card.getCardFingerprint() == null) {
+                    fingerprints.put(card, cardFingerprintUtil.fingerprint(cardNumber));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Не удалось расшифровать номер карты с id {}", card.getId(), e);
+            }
+        }
+
+        Set<String> taken = fingerprints.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(cardRepository.findExistingFingerprints(fingerprints.values()));
+
+        cardNumbers.forEach((card, cardNumber) -> {
+            if (card.getLastFour() == null) {
+                card.setLastFour(CardUtil.lastFour(cardNumber));
+            }
+            String fingerprint = fingerprints.get(card);
+            if (fingerprint != null) {
+                if (taken.add(fingerprint)) {
+                    card.setCardFingerprint(fingerprint);
+                } else {
+                    log.warn("Карта с id {} дублирует номер другой карты, отпечаток не заполнен", card.getId());
+                }
+            }
+        });
+
+        return new BatchResult(cards.size(), cards.isEmpty() ? afterId : cards.get(cards.size() - 1).getId());
+    }
+
+    private record BatchResult(int size, long lastId) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardVersionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переводит карты с истекшим сроком действия в статус EXPIRED. Каждая порция — отдельная транзакция:
+ * выбор id через частичный индекс с {@code FOR UPDATE SKIP LOCKED} и один UPDATE по этим id,
+ * поэтому несколько экземпляров приложения делят работу, не блокируя друг друга.
+ * Между порциями задание делает паузу, чтобы не вытеснять переводы и запросы пользователей.
+ */
+@Component
+public class CardExpirySweepJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CardExpirySweepJob.class);
+
+    private final CardRepository cardRepository;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration pause;
+
+    private final Counter expiredCards;
+    private final Counter chunks;
+    private final Timer sweepTimer;
+    private final AtomicLong currentRunExpired = new AtomicLong();
+
+    @Autowired
+    public CardExpirySweepJob(CardRepository cardRepository,
+                              CardVersionRegistry cardVersionRegistry,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${cards.expiry.chunk-size:1000}") int chunkSize,
+                              @Value("${cards.expiry.pause:PT0.1S}") Duration pause) {
+        this.cardRepository = cardRepository;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+
+        this.expiredCards = meterRegistry.counter("cards.expiry.expired");
+        this.chunks = meterRegistry.counter("cards.expiry.chunks");
+        this.sweepTimer = meterRegistry.timer("cards.expiry.sweep");
+        meterRegistry.gauge("cards.expiry.run.expired", currentRunExpired);
+    }
+
+    @Scheduled(initialDelayString = "${cards.expiry.initial-delay:60000}", fixedDelayString = "${cards.expiry.delay:3600000}")
+    public void run() {
+        sweepTimer.record(() -> sweep(LocalDate.now()));
+    }
+
+    /**
+     * Переводит в EXPIRED все карты со сроком действия раньше {@code today}.
+     *
+     * @return сколько карт переведено этим экземпляром
+     */
+    public long sweep(LocalDate today) {
+
+        long total = 0;
+        currentRunExpired.set(0);
+        while (true) {
+            Integer expired = transactionTemplate.execute(status -> {
+                List<Long> ids = cardRepository.findExpiredIdsForUpdate(today, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int marked = cardRepository.markExpired(ids);
+                cardVersionRegistry.cardOwnersChanged(ids);
+                return marked;
+            });
+            if (expired == null || expired == 0) {
+                break;
+            }
+            chunks.increment();
+            expiredCards.increment(expired);
+            total += expired;
+            currentRunExpired.set(total);
+            if (!pause()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Переведено в EXPIRED {} карт со сроком действия до {}", total, today);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            // Остановка приложения: оставшиеся карты обработает следующий запуск
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Физически удаляет карты, помеченные удаленными раньше чем {@code retention} назад. Запускается по расписанию
+ * в часы низкой нагрузки, удаляет пачками по {@code batchSize} строк, каждая пачка — отдельная транзакция,
+ * с паузой между пачками. Работа ограничена окном {@code maxDuration}: остаток удалит следующий запуск.
+ * Задание можно запускать на нескольких экземплярах: пачки выбираются с {@code FOR UPDATE SKIP LOCKED},
+ * поэтому параллельные запуски удаляют разные строки.
+ */
+@Component
+public class CardPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CardPurgeJob.class);
+
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final Duration pause;
+    private final Duration maxDuration;
+    private final Counter purgedCards;
+
+    @Autowired
+    public CardPurgeJob(CardRepository cardRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${cards.purge.batch-size:1000}") int batchSize,
+                        @Value("${cards.purge.retention:P7D}") Duration retention,
+                        @Value("${cards.purge.pause:PT0.1S}") Duration pause,
+                        @Value("${cards.purge.max-duration:PT1H}") Duration maxDuration) {
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.pause = pause;
+        this.maxDuration = maxDuration;
+        this.purgedCards = meterRegistry.counter("cards.purge.deleted");
+    }
+
+    @Scheduled(cron = "${cards.purge.cron:0 0 3 * * *}")
+    public void run() {
+        purge(Instant.now().minus(retention));
+    }
+
+    /**
+     * Удаляет карты, помеченные удаленными раньше {@code deletedBefore}.
+     *
+     * @return сколько строк удалено
+     */
+    public long purge(Instant deletedBefore) {
+
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        long total = 0;
+        while (System.nanoTime() < deadline) {
+            // null — кандидатов не осталось. Пачка, из которой ничего не удалено (карты успели восстановить),
+            // не конец работы: следующие кандидаты выбираются заново
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = cardRepository.findPurgeableIds(deletedBefore, batchSize);
+                return ids.isEmpty() ? null : cardRepository.purge(ids);
+            });
+            if (deleted == null) {
+                break;
+            }
+            total += deleted;
+            purgedCards.increment(deleted);
+            if (!pause()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Физически удалено {} карт, помеченных удаленными до {}", total, deletedBefore);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
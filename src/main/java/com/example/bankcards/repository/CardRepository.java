@@ -1,13 +1,148 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
-import org.springframework.data.domain.Page;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardBalance;
+import com.example.bankcards.repository.projection.CardBlockClaim;
+import com.example.bankcards.repository.projection.CardIdStatus;
+import com.example.bankcards.repository.projection.CardSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardSummarySearchRepository {
+
+    String CARD_SUMMARY = "select new com.example.bankcards.repository.projection.CardSummary(" +
+            "c.id, c.lastFour, case when c.lastFour is null then c.cardNumber end, c.expiryDate, c.balance, c.status) ";
+
+    @Query(CARD_SUMMARY + "from Card c where c.id in :ids order by c.id")
+    List<CardSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Очередь заявок на блокировку. Статус сравнивается с литералом, чтобы подходил частичный индекс ix_cards_pending_block.
+     */
+    @Query(CARD_SUMMARY + "from Card c where c.status = com.example.bankcards.entity.CardStatus.PENDING_BLOCK " +
+            "and c.id > :afterId order by c.id")
+    Slice<CardSummary> findPendingBlockSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Заявки на блокировку без действующей аренды. Строки, которые в этот момент берет другой администратор,
+     * пропускаются (SKIP LOCKED), поэтому параллельные вызовы получают разные карты.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c.id from Card c where c.status = com.example.bankcards.entity.CardStatus.PENDING_BLOCK " +
+            "and (c.blockClaimedUntil is null or c.blockClaimedUntil < :now) order by c.id")
+    List<Long> findClaimablePendingBlockIds(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("update Card c set c.blockClaimedBy = :adminId, c.blockClaimedUntil = :until where c.id in :ids")
+    int claimPendingBlocks(@Param("ids") Collection<Long> ids, @Param("adminId") Long adminId, @Param("until") Instant until);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.example.bankcards.repository.projection.CardBlockClaim(c.id, c.status, c.blockClaimedBy, c.blockClaimedUntil) " +
+            "from Card c where c.id in :ids order by c.id")
+    List<CardBlockClaim> findBlockClaimsForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Card c set c.status = com.example.bankcards.entity.CardStatus.BLOCKED, " +
+            "c.blockClaimedBy = null, c.blockClaimedUntil = null " +
+            "where c.id in :ids and c.status = com.example.bankcards.entity.CardStatus.PENDING_BLOCK " +
+            "and c.blockClaimedBy = :adminId and c.blockClaimedUntil >= :now")
+    int approveClaimedBlocks(@Param("ids") Collection<Long> ids, @Param("adminId") Long adminId, @Param("now") Instant now);
+
+    Optional<Card> findByIdAndOwnerId(Long id, Long ownerId);
+
+    @Query("select new com.example.bankcards.repository.projection.CardBalance(c.balance, c.owner.id, c.owner.cardsVersion) " +
+            "from Card c where c.id = :id")
+    Optional<CardBalance> findBalanceById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Блокирует строки карт в порядке id, чтобы параллельные массовые операции не взаимоблокировались.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.example.bankcards.repository.projection.CardIdStatus(c.id, c.status) " +
+            "from Card c where c.id in :ids order by c.id")
+    List<CardIdStatus> findStatusesForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Card c set c.status = :target where c.id in :ids and c.status in :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") Collection<CardStatus> from,
+                     @Param("target") CardStatus target);
+
+    /**
+     * Просроченные карты, еще не переведенные в EXPIRED. Строки, заблокированные другой транзакцией
+     * (например, тем же заданием на другом экземпляре), пропускаются: таймаут блокировки -2 — SKIP LOCKED.
+     * Статус сравнивается с литералом, чтобы подходил частичный индекс ix_cards_expiry_sweep.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c.id from Card c where c.expiryDate < :today " +
+            "and c.status <> com.example.bankcards.entity.CardStatus.EXPIRED")
+    List<Long> findExpiredIdsForUpdate(@Param("today") LocalDate today, Pageable pageable);
+
+    @Modifying
+    @Query("update Card c set c.status = com.example.bankcards.entity.CardStatus.EXPIRED " +
+            "where c.id in :ids and c.status <> com.example.bankcards.entity.CardStatus.EXPIRED")
+    int markExpired(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount " +
+            "where c.id = :id and c.status = :status and c.balance > :amount and c.owner.id = :userId")
+    int debitIfAllowed(@Param("id") Long id, @Param("amount") BigDecimal amount,
+                       @Param("userId") Long userId, @Param("status") CardStatus status);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount " +
+            "where c.id = :id and c.status = :status and c.owner.id = :userId")
+    int creditIfAllowed(@Param("id") Long id, @Param("amount") BigDecimal amount,
+                        @Param("userId") Long userId, @Param("status") CardStatus status);
+
+    boolean existsByIdAndOwnerId(Long id, Long ownerId);
+
+    Optional<Card> findByCardFingerprint(String cardFingerprint);
+
+    /**
+     * Помечает карту удаленной одним UPDATE без загрузки сущности. Отпечаток номера очищается,
+     * чтобы уникальный индекс не мешал снова выпустить карту с тем же номером до физического удаления.
+     */
+    @Modifying
+    @Query("update Card c set c.deletedAt = :deletedAt, c.cardFingerprint = null where c.id = :id and c.deletedAt is null")
+    int softDelete(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+
+    // Удаленные карты скрыты от JPQL ограничением на сущности, поэтому очистка идет нативным SQL.
+    // SKIP LOCKED: параллельные запуски на других экземплярах берут другие строки, а не ждут эти
+    @Query(value = "select id from cards where deleted_at < :before order by id limit :limit for update skip locked",
+            nativeQuery = true)
+    List<Long> findPurgeableIds(@Param("before") Instant before, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from cards where id in (:ids) and deleted_at is not null", nativeQuery = true)
+    int purge(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.cardFingerprint from Card c where c.cardFingerprint in :fingerprints")
+    List<String> findExistingFingerprints(@Param("fingerprints") Collection<String> fingerprints);
 
-    Page<Card> findByOwnerId(long id, Pageable pageable);
+    @Query("select c from Card c where c.id > :afterId and (c.lastFour is null or c.cardFingerprint is null) order by c.id")
+    List<Card> findBackfillBatch(@Param("afterId") long afterId, Pageable pageable);
 }
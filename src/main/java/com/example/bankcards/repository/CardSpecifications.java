@@ -0,0 +1,74 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Условия поиска карт. Каждое условие ложится на колонку таблицы {@code cards},
+ * без join с {@code users}, чтобы планировщик мог использовать индексы по {@code cards}.
+ */
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> hasStatus(CardStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Card> hasStatusIn(Collection<CardStatus> statuses) {
+        return (root, query, cb) -> root.get("status").in(statuses);
+    }
+
+    public static Specification<Card> expiresOnOrAfter(LocalDate date) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("expiryDate"), date);
+    }
+
+    public static Specification<Card> expiresOnOrBefore(LocalDate date) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("expiryDate"), date);
+    }
+
+    public static Specification<Card> ownedBy(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Card> balanceAtLeast(BigDecimal amount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("balance"), amount);
+    }
+
+    public static Specification<Card> balanceAtMost(BigDecimal amount) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("balance"), amount);
+    }
+
+    public static Specification<Card> matching(CardSearchFilterDto filter) {
+
+        List<Specification<Card>> specs = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            specs.add(hasStatus(filter.getStatus()));
+        }
+        if (filter.getExpiresFrom() != null) {
+            specs.add(expiresOnOrAfter(filter.getExpiresFrom()));
+        }
+        if (filter.getExpiresTo() != null) {
+            specs.add(expiresOnOrBefore(filter.getExpiresTo()));
+        }
+        if (filter.getOwnerId() != null) {
+            specs.add(ownedBy(filter.getOwnerId()));
+        }
+        if (filter.getMinBalance() != null) {
+            specs.add(balanceAtLeast(filter.getMinBalance()));
+        }
+        if (filter.getMaxBalance() != null) {
+            specs.add(balanceAtMost(filter.getMaxBalance()));
+        }
+        return Specification.allOf(specs);
+    }
+}
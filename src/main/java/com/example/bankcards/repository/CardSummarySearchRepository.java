@@ -0,0 +1,39 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.projection.CardSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+
+public interface CardSummarySearchRepository {
+
+    /**
+     * Страница {@link CardSummary} по условию, отсортированная по id.
+     */
+    default Page<CardSummary> searchSummaries(Specification<Card> spec, Pageable pageable) {
+        return searchSummaries(spec, CardField.ALL, pageable);
+    }
+
+    /**
+     * То же, но из БД выбираются только колонки полей {@code fields} (и всегда id), остальные компоненты
+     * {@link CardSummary} равны {@code null}.
+     */
+    Page<CardSummary> searchSummaries(Specification<Card> spec, Set<CardField> fields, Pageable pageable);
+
+    /**
+     * Не больше {@code size} карт по условию с id больше {@code afterId} по возрастанию id, без COUNT.
+     * Колонки выбираются как в {@link #searchSummaries(Specification, Set, Pageable)}.
+     */
+    Slice<CardSummary> searchSummariesAfter(Specification<Card> spec, Set<CardField> fields, long afterId, int size);
+
+    /**
+     * Не больше {@code limit} id карт по условию с id больше {@code afterId}, по возрастанию.
+     */
+    List<Long> findIds(Specification<Card> spec, long afterId, int limit);
+}
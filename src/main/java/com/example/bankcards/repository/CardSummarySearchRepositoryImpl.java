@@ -0,0 +1,131 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поиск по {@link Specification} с выборкой сразу в {@link CardSummary}: те же колонки,
+ * что и в {@link CardRepository#CARD_SUMMARY}, без загрузки сущностей в контекст.
+ * Колонки полей, не вошедших в {@code fields}, в SELECT не попадают: вместо них выбирается {@code null}.
+ */
+public class CardSummarySearchRepositoryImpl implements CardSummarySearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<CardSummary> searchSummaries(Specification<Card> spec, Set<CardField> fields, Pageable pageable) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<CardSummary> query = cb.createQuery(CardSummary.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(summary(cb, root, fields));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        TypedQuery<CardSummary> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<CardSummary> searchSummariesAfter(Specification<Card> spec, Set<CardField> fields, long afterId, int size) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<CardSummary> query = cb.createQuery(CardSummary.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(summary(cb, root, fields));
+        Predicate after = cb.greaterThan(root.get("id"), afterId);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        query.where(predicate != null ? cb.and(after, predicate) : after);
+        query.orderBy(cb.asc(root.get("id")));
+
+        // Лишняя строка показывает, есть ли следующая страница, без COUNT
+        List<CardSummary> content = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Card> spec, long afterId, int limit) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(root.get("id"));
+        Predicate after = cb.greaterThan(root.get("id"), afterId);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        query.where(predicate != null ? cb.and(after, predicate) : after);
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private long count(Specification<Card> spec) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Id выбирается всегда: по нему строится курсор следующей страницы.
+     */
+    private static CompoundSelection<CardSummary> summary(CriteriaBuilder cb, Root<Card> root, Set<CardField> fields) {
+        boolean masked = fields.contains(CardField.MASKED_CARD_NUMBER);
+        return cb.construct(CardSummary.class,
+                root.get("id"),
+                masked ? root.<String>get("lastFour") : cb.nullLiteral(String.class),
+                masked ? cb.<String>selectCase()
+                        .when(cb.isNull(root.get("lastFour")), root.<String>get("cardNumber"))
+                        .otherwise(cb.nullLiteral(String.class)) : cb.nullLiteral(String.class),
+                column(cb, root, fields, CardField.EXPIRY_DATE, "expiryDate", LocalDate.class),
+                column(cb, root, fields, CardField.BALANCE, "balance", BigDecimal.class),
+                column(cb, root, fields, CardField.STATUS, "status", CardStatus.class));
+    }
+
+    private static <T> Expression<T> column(CriteriaBuilder cb, Root<Card> root, Set<CardField> fields,
+                                            CardField field, String attribute, Class<T> type) {
+        return fields.contains(field) ? root.get(attribute) : cb.nullLiteral(type);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TransferEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TransferEntryRepository extends JpaRepository<TransferEntry, Long> {
+
+    @Query("select e from TransferEntry e where e.cardId = :cardId " +
+            "and exists (select 1 from Card c where c.id = :cardId and c.owner.id = :userId) " +
+            "order by e.createdAt desc, e.id desc")
+    List<TransferEntry> findCardHistory(@Param("cardId") Long cardId, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("select e from TransferEntry e where e.cardId = :cardId " +
+            "and exists (select 1 from Card c where c.id = :cardId and c.owner.id = :userId) " +
+            "and (e.createdAt, e.id) < (:createdAt, :id) " +
+            "order by e.createdAt desc, e.id desc")
+    List<TransferEntry> findCardHistoryBefore(@Param("cardId") Long cardId, @Param("userId") Long userId,
+                                              @Param("createdAt") Instant createdAt, @Param("id") Long id,
+                                              Pageable pageable);
+}
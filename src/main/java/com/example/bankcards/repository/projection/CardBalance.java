@@ -0,0 +1,6 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+
+public record CardBalance(BigDecimal balance, Long ownerId, Long ownerCardsVersion) {
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.time.Instant;
+
+public record CardBlockClaim(Long id, CardStatus status, Long claimedBy, Instant claimedUntil) {
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.CardStatus;
+
+public record CardIdStatus(Long id, CardStatus status) {
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Колонки карты, нужные для {@link com.example.bankcards.dto.CardDto}.
+ * {@code cardNumber} (шифротекст) выбирается, только если {@code lastFour} еще не заполнен.
+ */
+public record CardSummary(Long id, String lastFour, String cardNumber, LocalDate expiryDate,
+                          BigDecimal balance, CardStatus status) {
+}
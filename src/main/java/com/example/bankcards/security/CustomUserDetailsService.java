@@ -34,6 +34,6 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .collect(Collectors.toSet());
 
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), grantedAuthorities);
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(), grantedAuthorities, user.getTokenVersion());
     }
 }
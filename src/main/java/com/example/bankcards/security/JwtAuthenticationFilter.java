@@ -1,29 +1,44 @@
 package com.example.bankcards.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final boolean claimsAuthEnabled;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   CustomUserDetailsService customUserDetailsService,
+                                   TokenVersionRegistry tokenVersionRegistry,
+                                   @Value("${jwt.claims-auth:false}") boolean claimsAuthEnabled) {
         this.tokenProvider = tokenProvider;
         this.customUserDetailsService = customUserDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.claimsAuthEnabled = claimsAuthEnabled;
     }
 
 
@@ -31,18 +46,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         String token = getJWTFromRequest(request);
-        if (token != null && tokenProvider.validateToken(token)) {
-            String username = tokenProvider.getUsernameFromToken(token);
+        Claims claims = token != null ? tokenProvider.verifyToken(token).orElse(null) : null;
+        if (claims != null) {
+            UserDetails userDetails = resolveUser(claims);
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private UserDetails resolveUser(Claims claims) {
 
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        Long userId = claims.get(JwtTokenProvider.USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtTokenProvider.TOKEN_VERSION_CLAIM, Integer.class);
 
-            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        if (claimsAuthEnabled && userId != null && tokenVersion != null) {
+            if (!tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+                return null;
+            }
+            return new UserPrincipal(userId, claims.getSubject(), null, parseAuthorities(claims), tokenVersion);
         }
 
-        filterChain.doFilter(request, response);
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
+        if (tokenVersion != null && userDetails instanceof UserPrincipal principal && principal.getTokenVersion() != tokenVersion) {
+            return null;
+        }
+        return userDetails;
+    }
+
+    private Set<GrantedAuthority> parseAuthorities(Claims claims) {
+
+        String roles = claims.get(JwtTokenProvider.ROLES_CLAIM, String.class);
+        if (!StringUtils.hasText(roles)) {
+            return Set.of();
+        }
+        return Arrays.stream(roles.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toSet());
     }
 
     private String getJWTFromRequest(HttpServletRequest request) {
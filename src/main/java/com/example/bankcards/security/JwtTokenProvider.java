@@ -1,9 +1,20 @@
 package com.example.bankcards.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,16 +22,49 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    @Value("${jwt.expiration}")
-    private Long jwtExpirationInMs;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final Key key;
+    private final JwtParser parser;
+    private final long jwtExpirationInMs;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter expiredTokens;
+    private final Counter malformedTokens;
+    private final Counter badSignatureTokens;
+    private final Counter unsupportedTokens;
+    private final Counter invalidTokens;
+
+    @Autowired
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpirationInMs,
+                            @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize,
+                            MeterRegistry meterRegistry) {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokenCache = new VerifiedTokenCache(verifiedCacheSize);
+
+        this.cacheHits = meterRegistry.counter("jwt.verification.cache", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("jwt.verification.cache", "result", "miss");
+        this.expiredTokens = meterRegistry.counter("jwt.verification.failures", "reason", "expired");
+        this.malformedTokens = meterRegistry.counter("jwt.verification.failures", "reason", "malformed");
+        this.badSignatureTokens = meterRegistry.counter("jwt.verification.failures", "reason", "signature");
+        this.unsupportedTokens = meterRegistry.counter("jwt.verification.failures", "reason", "unsupported");
+        this.invalidTokens = meterRegistry.counter("jwt.verification.failures", "reason", "invalid");
+    }
 
     public String generateToken(Authentication authentication) {
 
@@ -33,40 +77,52 @@ public class JwtTokenProvider {
         Date currentDate = new Date();
         Date expirationDate = new Date(currentDate.getTime() + jwtExpirationInMs);
 
-
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .claim("roles", roles)
+                .claim(ROLES_CLAIM, roles);
+
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId())
+                    .claim(TOKEN_VERSION_CLAIM, principal.getTokenVersion());
+        }
+
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(expirationDate)
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
-    private Key key(){
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
+    /**
+     * Проверяет подпись и срок действия токена за один разбор и возвращает его claims.
+     * Недавно проверенные токены берутся из кэша без повторного вычисления HMAC.
+     */
+    public Optional<Claims> verifyToken(String token) {
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
-    }
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            cacheHits.increment();
+            return Optional.of(cached);
+        }
+        cacheMisses.increment();
 
-    public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key())
-                    .build()
-                    .parse(token);
-            return true;
-        } catch (Exception ex) {
-            System.out.println(ex.getMessage());
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(token, claims);
+            return Optional.of(claims);
+        } catch (ExpiredJwtException ex) {
+            expiredTokens.increment();
+        } catch (MalformedJwtException ex) {
+            malformedTokens.increment();
+        } catch (SignatureException ex) {
+            badSignatureTokens.increment();
+        } catch (UnsupportedJwtException ex) {
+            unsupportedTokens.increment();
+        } catch (RuntimeException ex) {
+            invalidTokens.increment();
+            log.debug("Невалидный JWT токен: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
     }
 
 }
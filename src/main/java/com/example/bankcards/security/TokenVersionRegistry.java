@@ -0,0 +1,57 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранит в памяти текущую версию токенов каждого пользователя.
+ * Токен с версией меньше текущей считается отозванным. Версия подгружается из БД
+ * один раз и перечитывается не чаще, чем раз в {@code jwt.token-version-ttl} мс,
+ * поэтому отзыв, сделанный на другом экземпляре приложения, применяется с этой задержкой.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+    private final long ttlMs;
+    private final Map<Long, Entry> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenVersionRegistry(UserRepository userRepository, @Value("${jwt.token-version-ttl:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlMs;
+    }
+
+    public boolean isCurrent(long userId, int tokenVersion) {
+        Entry entry = versions.get(userId);
+        long now = System.currentTimeMillis();
+
+        if (entry == null || now - entry.loadedAt() > ttlMs) {
+            Optional<Integer> stored = userRepository.findTokenVersionById(userId);
+            if (stored.isEmpty()) {
+                versions.remove(userId);
+                return false;
+            }
+            Entry loaded = new Entry(stored.get(), now);
+            entry = versions.merge(userId, loaded, TokenVersionRegistry::newest);
+        }
+        return entry.version() == tokenVersion;
+    }
+
+    public void update(long userId, int tokenVersion) {
+        versions.merge(userId, new Entry(tokenVersion, System.currentTimeMillis()), TokenVersionRegistry::newest);
+    }
+
+    private static Entry newest(Entry old, Entry fresh) {
+        return new Entry(Math.max(old.version(), fresh.version()), fresh.loadedAt());
+    }
+
+    private record Entry(int version, long loadedAt) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardBalance;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Баланс и владелец карты по id для частых опросов баланса.
+ * Промах читает строку из основной БД (не из реплики) в отдельной транзакции. Загрузка сначала кладет
+ * в кэш незавершенный {@link CompletableFuture} и только потом читает БД, уже вне блокировок кэша: одновременные
+ * промахи по карте ждут одну загрузку, а обновление заменяет ее своей. Поэтому чтение, начатое до коммита
+ * перевода, не может перезаписать значение, перечитанное после коммита.
+ * Пути, меняющие баланс, синхронно обновляют закэшированные карты после коммита: перевод — через
+ * {@link #refresh}, удаление — через {@link #evictAfterCommit}. Изменения в обход приложения
+ * (в том числе с другого экземпляра) видны не позже чем через {@code cards.balance-cache.ttl}.
+ * Версия значения для ETag — id карты и версия карт владельца ({@link CardVersionRegistry}), прочитанные
+ * вместе с балансом: перечитанные без изменений данные, в том числе после истечения ttl и на другом экземпляре
+ * приложения, получают ту же версию.
+ */
+@Component
+public class CardBalanceCache {
+
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncCache<Long, CachedBalance> cache;
+
+    @Autowired
+    public CardBalanceCache(CardRepository cardRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${cards.balance-cache.max-size:100000}") long maxSize,
+                            @Value("${cards.balance-cache.ttl:PT10S}") Duration ttl) {
+        this.cardRepository = cardRepository;
+        // Не read-only, чтобы загрузка шла в основную БД, а не в реплику, и всегда в своей транзакции,
+        // не присоединяясь к read-only транзакции вызывающего
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "cards.balance");
+    }
+
+    /**
+     * Баланс и владелец карты или {@code null}, если карты нет. Отсутствие карты не кэшируется.
+     */
+    public CachedBalance get(Long cardId) {
+        CompletableFuture<CachedBalance> loading = new CompletableFuture<>();
+        CompletableFuture<CachedBalance> cached = cache.get(cardId, (id, executor) -> loading);
+        if (cached == loading) {
+            load(cardId, loading);
+        }
+        return await(cached);
+    }
+
+    /**
+     * Перечитывает карты, которые уже есть в кэше. Вызывается вне транзакции, после коммита перевода.
+     */
+    public void refresh(Long... cardIds) {
+        for (Long cardId : cardIds) {
+            CompletableFuture<CachedBalance> reloading = new CompletableFuture<>();
+            // Загрузка, начатая раньше (в том числе еще не завершенная), вытесняется и в кэш уже не попадет
+            if (cache.asMap().computeIfPresent(cardId, (id, cached) -> reloading) == reloading) {
+                load(cardId, reloading);
+            }
+        }
+    }
+
+    /**
+     * Убирает карту из кэша после коммита текущей транзакции, а без транзакции — сразу.
+     */
+    public void evictAfterCommit(Long cardId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidate(cardId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.synchronous().invalidate(cardId);
+            }
+        });
+    }
+
+    /**
+     * Завершает загрузку, уже занявшую место в кэше. Пустой или неудачный результат Caffeine из кэша убирает.
+     */
+    private void load(Long cardId, CompletableFuture<CachedBalance> loading) {
+        try {
+            loading.complete(read(cardId));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private CachedBalance read(Long cardId) {
+        CardBalance loaded = transactionTemplate.execute(status -> cardRepository.findBalanceById(cardId).orElse(null));
+        if (loaded == null) {
+            return null;
+        }
+        return new CachedBalance(loaded.balance(), loaded.ownerId(), cardId + "-" + loaded.ownerCardsVersion());
+    }
+
+    private static CachedBalance await(CompletableFuture<CachedBalance> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Ошибка чужой загрузки доходит до вызывающего в исходном виде, как и своя
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public record CachedBalance(BigDecimal balance, Long ownerId, String version) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PendingBlockClaimDto;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public interface CardBlockQueueService {
+
+    Slice<CardDto> getPendingBlocks(long afterId, int size);
+
+    PendingBlockClaimDto claimPendingBlocks(Long adminId, int size);
+
+    BulkStatusChangeResultDto approveBlocks(Long adminId, List<Long> cardIds);
+}
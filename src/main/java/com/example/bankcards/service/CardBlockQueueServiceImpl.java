@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PendingBlockClaimDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardBlockClaim;
+import com.example.bankcards.util.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Очередь заявок пользователей на блокировку (карты в статусе PENDING_BLOCK).
+ * Администратор берет порцию заявок в аренду на {@code claimTtl}: выборка идет с {@code FOR UPDATE SKIP LOCKED},
+ * поэтому параллельные администраторы и обработчики получают непересекающиеся карты. Подтверждение переводит
+ * взятые карты в BLOCKED одним UPDATE с проверкой статуса, арендатора и срока аренды.
+ */
+@Service
+public class CardBlockQueueServiceImpl implements CardBlockQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardBlockQueueServiceImpl.class);
+
+    private final CardRepository cardRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final Duration claimTtl;
+    private final int maxClaimSize;
+
+    @Autowired
+    public CardBlockQueueServiceImpl(CardRepository cardRepository,
+                                     EncryptionUtil encryptionUtil,
+                                     CardVersionRegistry cardVersionRegistry,
+                                     @Value("${cards.block-queue.claim-ttl:PT5M}") Duration claimTtl,
+                                     @Value("${cards.block-queue.max-claim-size:100}") int maxClaimSize) {
+        this.cardRepository = cardRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.claimTtl = claimTtl;
+        this.maxClaimSize = maxClaimSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getPendingBlocks(long afterId, int size) {
+        return cardRepository.findPendingBlockSummariesAfter(afterId, PageRequest.of(0, size))
+                .map(card -> CardMapper.toDto(card, encryptionUtil));
+    }
+
+    @Override
+    @Transactional
+    public PendingBlockClaimDto claimPendingBlocks(Long adminId, int size) {
+
+        Instant now = Instant.now();
+        Instant claimedUntil = now.plus(claimTtl);
+
+        List<Long> ids = cardRepository.findClaimablePendingBlockIds(now, PageRequest.of(0, Math.min(size, maxClaimSize)));
+        if (ids.isEmpty()) {
+            return new PendingBlockClaimDto(List.of(), claimedUntil);
+        }
+        cardRepository.claimPendingBlocks(ids, adminId, claimedUntil);
+
+        log.info("Администратор {} взял в работу {} заявок на блокировку до {}", adminId, ids.size(), claimedUntil);
+        return new PendingBlockClaimDto(cardRepository.findSummariesByIds(ids).stream()
+                .map(card -> CardMapper.toDto(card, encryptionUtil)).toList(), claimedUntil);
+    }
+
+    @Override
+    @Transactional
+    public BulkStatusChangeResultDto approveBlocks(Long adminId, List<Long> cardIds) {
+
+        Instant now = Instant.now();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(cardIds));
+        Map<Long, CardBlockClaim> claims = new HashMap<>();
+        cardRepository.findBlockClaimsForUpdate(ids).forEach(claim -> claims.put(claim.id(), claim));
+
+        BulkStatusChangeResultDto result = new BulkStatusChangeResultDto(CardStatus.BLOCKED);
+        List<Long> approved = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CardBlockClaim claim = claims.get(id);
+            if (claim == null) {
+                result.getRejected().add(new BulkStatusChangeResultDto.Rejection(id, "Карта с id " + id + " не найдена"));
+            } else if (claim.status() != CardStatus.PENDING_BLOCK) {
+                result.getRejected().add(new BulkStatusChangeResultDto.Rejection(id, "Карта не ожидает блокировки"));
+            } else if (!adminId.equals(claim.claimedBy())) {
+                result.getRejected().add(new BulkStatusChangeResultDto.Rejection(id, "Заявка не взята в работу этим администратором"));
+            } else if (claim.claimedUntil() == null || claim.claimedUntil().isBefore(now)) {
+                // Заявка уже могла вернуться в очередь и достаться другому администратору
+                result.getRejected().add(new BulkStatusChangeResultDto.Rejection(id, "Аренда заявки истекла, возьмите ее в работу заново"));
+            } else {
+                approved.add(id);
+            }
+        }
+        if (!approved.isEmpty()) {
+            cardRepository.approveClaimedBlocks(approved, adminId, now);
+            cardVersionRegistry.cardOwnersChanged(approved);
+        }
+        result.getChanged().addAll(approved);
+        return result;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CardExportService {
+
+    /**
+     * Пишет все карты в {@code out} в порядке id и возвращает число выгруженных строк.
+     */
+    long exportCards(CardExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.EncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выгрузка всех карт курсором JDBC. Запрос идет в read-only транзакции с ограниченным fetch size,
+ * поэтому драйвер PostgreSQL держит в памяти не больше одной порции строк, а каждая строка
+ * маскируется и пишется в ответ сразу после чтения. Расход памяти не зависит от размера таблицы.
+ * Если клиент отключился, запись падает с {@link IOException}: курсор закрывается,
+ * транзакция откатывается и соединение возвращается в пул, не дочитывая таблицу.
+ */
+@Service
+public class CardExportServiceImpl implements CardExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardExportServiceImpl.class);
+
+    private static final String EXPORT_SQL = "select id, user_id, last_four, " +
+            "case when last_four is null then card_number end as card_number, expiry_date, balance, status " +
+            "from cards where deleted_at is null order by id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CardExportServiceImpl(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 EncryptionUtil encryptionUtil,
+                                 ObjectMapper objectMapper,
+                                 @Value("${cards.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.encryptionUtil = encryptionUtil;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public long exportCards(CardExportFormat format, OutputStream out) throws IOException {
+
+        AtomicLong rows = new AtomicLong();
+        try (CardExportWriter writer = CardExportWriter.open(format, out, objectMapper.getFactory())) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, rs -> {
+                String lastFour = rs.getString("last_four");
+                String maskedCardNumber = lastFour != null
+                        ? CardUtil.maskLastFour(lastFour)
+                        : CardUtil.maskCardNumber(encryptionUtil.decrypt(rs.getString("card_number")));
+                Date expiryDate = rs.getDate("expiry_date");
+                try {
+                    writer.writeRow(rs.getLong("id"), rs.getLong("user_id"), maskedCardNumber,
+                            expiryDate != null ? expiryDate.toLocalDate() : null,
+                            rs.getBigDecimal("balance"), rs.getString("status"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows.incrementAndGet();
+            }));
+        } catch (UncheckedIOException e) {
+            log.info("Выгрузка карт прервана после {} строк: {}", rows.get(), e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        log.info("Выгружено {} карт в формате {}", rows.get(), format);
+        return rows.get();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Построчная запись выгрузки карт. Строка сразу уходит в буфер потока ответа и не копится в памяти.
+ * Поля совпадают с {@link com.example.bankcards.dto.CardDto} плюс id владельца.
+ * {@link #close()} дописывает буфер, но не закрывает сам поток.
+ */
+public abstract class CardExportWriter implements Closeable {
+
+    public static CardExportWriter open(CardExportFormat format, OutputStream out, JsonFactory jsonFactory) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(jsonFactory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+            case CSV -> new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        };
+    }
+
+    public abstract void writeRow(long id, long ownerId, String maskedCardNumber, LocalDate expiryDate,
+                                  BigDecimal balance, String status) throws IOException;
+
+    private static final class NdjsonWriter extends CardExportWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(JsonGenerator generator) {
+            // Разделитель между объектами - перевод строки из writeRow, а не пробел по умолчанию
+            this.generator = generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeRow(long id, long ownerId, String maskedCardNumber, LocalDate expiryDate,
+                             BigDecimal balance, String status) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeNumberField("ownerId", ownerId);
+            generator.writeStringField("maskedCardNumber", maskedCardNumber);
+            generator.writeStringField("expiryDate", expiryDate != null ? expiryDate.toString() : null);
+            generator.writeNumberField("balance", balance);
+            generator.writeStringField("status", status);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter extends CardExportWriter {
+
+        private static final String HEADER = "id,ownerId,maskedCardNumber,expiryDate,balance,status";
+
+        private final Writer writer;
+
+        private CsvWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        // Значения не содержат запятых и кавычек: числа, дата ISO, маска из '*' и цифр, имя статуса
+        @Override
+        public void writeRow(long id, long ownerId, String maskedCardNumber, LocalDate expiryDate,
+                             BigDecimal balance, String status) throws IOException {
+            writer.write(Long.toString(id));
+            writer.write(',');
+            writer.write(Long.toString(ownerId));
+            writer.write(',');
+            writer.write(maskedCardNumber);
+            writer.write(',');
+            if (expiryDate != null) {
+                writer.write(expiryDate.toString());
+            }
+            writer.write(',');
+            writer.write(balance.toPlainString());
+            writer.write(',');
+            writer.write(status);
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.CreateCardRequestDto;
+
+import java.util.List;
+
+public interface CardImportService {
+
+    BulkImportResultDto importCards(List<CreateCardRequestDto> requests);
+
+    /**
+     * CSV с колонками {@code userId,cardNumber,expiryDate}, строка заголовка необязательна.
+     */
+    BulkImportResultDto importCardsCsv(String csv);
+}
@@ -0,0 +1,299 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.BulkImportRowResultDto;
+import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BulkImportTooLargeException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardFingerprintUtil;
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.ConstraintViolations;
+import com.example.bankcards.util.EncryptionUtil;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Массовое создание карт. Проверка и шифрование строк идут параллельно, вставка — порциями
+ * по {@code chunkSize} строк, каждая порция в своей транзакции: id берутся из последовательности
+ * пачками, а INSERT уходят в БД пакетами JDBC. Ошибка в строке не отменяет остальные строки,
+ * по каждой строке возвращается результат.
+ */
+@Service
+public class CardImportServiceImpl implements CardImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardImportServiceImpl.class);
+
+    private static final String CSV_HEADER = "userId,cardNumber,expiryDate";
+    private static final String DUPLICATE_CARD = "Карта с таким номером уже существует";
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final CardFingerprintUtil cardFingerprintUtil;
+    private final Validator validator;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+
+    @Autowired
+    public CardImportServiceImpl(CardRepository cardRepository,
+                                 UserRepository userRepository,
+                                 EncryptionUtil encryptionUtil,
+                                 CardFingerprintUtil cardFingerprintUtil,
+                                 Validator validator,
+                                 CardVersionRegistry cardVersionRegistry,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${cards.bulk-import.chunk-size:1000}") int chunkSize,
+                                 @Value("${cards.bulk-import.max-rows:100000}") int maxRows) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.cardFingerprintUtil = cardFingerprintUtil;
+        this.validator = validator;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public BulkImportResultDto importCards(List<CreateCardRequestDto> requests) {
+
+        checkSize(requests.size());
+        List<ImportRow> rows = IntStream.range(0, requests.size())
+                .mapToObj(i -> new ImportRow(i + 1, requests.get(i), null))
+                .toList();
+        return importRows(rows);
+    }
+
+    @Override
+    public BulkImportResultDto importCardsCsv(String csv) {
+
+        List<String> lines = csv.lines().toList();
+        List<ImportRow> rows = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || (i == 0 && line.equalsIgnoreCase(CSV_HEADER))) {
+                continue;
+            }
+            rows.add(parseCsvLine(i + 1, line));
+        }
+        checkSize(rows.size());
+        return importRows(rows);
+    }
+
+    private BulkImportResultDto importRows(List<ImportRow> rows) {
+
+        long start = System.nanoTime();
+
+        // Проверка, шифрование и HMAC не зависят друг от друга и занимают большую часть времени
+        List<PreparedCard> prepared = rows.parallelStream().map(this::prepare).toList();
+
+        BulkImportRowResultDto[] results = new BulkImportRowResultDto[rows.size()];
+        List<PreparedCard> valid = new ArrayList<>();
+        Set<String> seenFingerprints = new HashSet<>();
+        for (int i = 0; i < prepared.size(); i++) {
+            PreparedCard card = prepared.get(i);
+            if (card.error() != null) {
+                results[i] = BulkImportRowResultDto.failed(card.row(), card.error());
+            } else if (!seenFingerprints.add(card.fingerprint())) {
+                results[i] = BulkImportRowResultDto.failed(card.row(), "Карта с таким номером уже есть выше в запросе");
+            } else {
+                valid.add(card.withPosition(i));
+            }
+        }
+
+        Set<Long> existingOwners = findExistingOwners(valid);
+        List<PreparedCard> insertable = new ArrayList<>(valid.size());
+        for (PreparedCard card : valid) {
+            if (existingOwners.contains(card.userId())) {
+                insertable.add(card);
+            } else {
+                results[card.position()] = BulkImportRowResultDto.failed(card.row(), "Не найден пользователь с id: " + card.userId());
+            }
+        }
+
+        for (int from = 0; from < insertable.size(); from += chunkSize) {
+            insertChunk(insertable.subList(from, Math.min(from + chunkSize, insertable.size())), results);
+        }
+
+        BulkImportResultDto result = new BulkImportResultDto(Arrays.asList(results));
+        log.info("Импорт карт: {} строк, создано {}, ошибок {} за {} мс", result.getTotal(), result.getCreated(),
+                result.getFailed(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private void insertChunk(List<PreparedCard> chunk, BulkImportRowResultDto[] results) {
+        try {
+            List<PreparedCard> duplicates = new ArrayList<>();
+            List<Card> saved = transactionTemplate.execute(status -> {
+                Set<String> taken = new HashSet<>(cardRepository.findExistingFingerprints(
+                        chunk.stream().map(PreparedCard::fingerprint).toList()));
+                List<Card> cards = new ArrayList<>(chunk.size());
+                for (PreparedCard card : chunk) {
+                    if (taken.contains(card.fingerprint())) {
+                        duplicates.add(card);
+                    } else {
+                        cards.add(toCard(card));
+                    }
+                }
+                List<Card> persisted = cardRepository.saveAll(cards);
+                cardRepository.flush();
+                cardVersionRegistry.cardsChanged(chunk.stream().map(PreparedCard::userId).toList());
+                return persisted;
+            });
+
+            duplicates.forEach(card -> results[card.position()] = BulkImportRowResultDto.failed(card.row(), DUPLICATE_CARD));
+            int next = 0;
+            for (PreparedCard card : chunk) {
+                if (results[card.position()] == null) {
+                    Card persisted = saved.get(next++);
+                    results[card.position()] = BulkImportRowResultDto.created(card.row(), persisted.getId(),
+                            CardUtil.maskLastFour(persisted.getLastFour()));
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Например, такой же номер успели вставить параллельно: порция откатилась, повторяем ее построчно,
+            // чтобы ошибку получили только строки, которые ее вызывают
+            log.debug("Порция импорта откатилась из-за нарушения ограничения {}, повтор по одной строке",
+                    ConstraintViolations.constraintName(e), e);
+            chunk.forEach(card -> results[card.position()] = insertOne(card));
+        }
+    }
+
+    private BulkImportRowResultDto insertOne(PreparedCard card) {
+        try {
+            Card persisted = transactionTemplate.execute(status -> {
+                Card inserted = cardRepository.saveAndFlush(toCard(card));
+                cardVersionRegistry.cardsChanged(card.userId());
+                return inserted;
+            });
+            return BulkImportRowResultDto.created(card.row(), persisted.getId(), CardUtil.maskLastFour(persisted.getLastFour()));
+        } catch (DataIntegrityViolationException e) {
+            return BulkImportRowResultDto.failed(card.row(), insertError(card, e));
+        }
+    }
+
+    private String insertError(PreparedCard card, DataIntegrityViolationException e) {
+        if (ConstraintViolations.violates(e, ConstraintViolations.CARD_FINGERPRINT)) {
+            return DUPLICATE_CARD;
+        }
+        if (ConstraintViolations.violates(e, ConstraintViolations.CARD_OWNER)) {
+            // Пользователь удален уже после проверки владельцев
+            return "Не найден пользователь с id: " + card.userId();
+        }
+        log.warn("Строка {} импорта не сохранена", card.row(), e);
+        String constraint = ConstraintViolations.constraintName(e);
+        return constraint != null
+                ? "Нарушено ограничение БД: " + constraint
+                : "Нарушено ограничение целостности данных";
+    }
+
+    private Set<Long> findExistingOwners(List<PreparedCard> cards) {
+
+        List<Long> ownerIds = cards.stream().map(PreparedCard::userId).distinct().toList();
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < ownerIds.size(); from += chunkSize) {
+            existing.addAll(userRepository.findExistingIds(ownerIds.subList(from, Math.min(from + chunkSize, ownerIds.size()))));
+        }
+        return existing;
+    }
+
+    private PreparedCard prepare(ImportRow row) {
+
+        if (row.parseError() != null) {
+            return PreparedCard.failed(row.row(), row.parseError());
+        }
+        CreateCardRequestDto request = row.request();
+        Set<ConstraintViolation<CreateCardRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return PreparedCard.failed(row.row(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        String cardNumber = request.getCardNumber();
+        return new PreparedCard(row.row(), -1, request.getUserId(), encryptionUtil.encrypt(cardNumber),
+                CardUtil.lastFour(cardNumber), cardFingerprintUtil.fingerprint(cardNumber), request.getExpiryDate(), null);
+    }
+
+    private Card toCard(PreparedCard prepared) {
+
+        Card card = new Card();
+        card.setCardNumber(prepared.encryptedCardNumber());
+        card.setLastFour(prepared.lastFour());
+        card.setCardFingerprint(prepared.fingerprint());
+        card.setOwner(userRepository.getReferenceById(prepared.userId()));
+        card.setExpiryDate(prepared.expiryDate());
+        card.setBalance(BigDecimal.ZERO);
+        card.setStatus(CardStatus.ACTIVE);
+        return card;
+    }
+
+    private ImportRow parseCsvLine(int lineNumber, String line) {
+
+        String[] columns = line.split(",", -1);
+        if (columns.length != 3) {
+            return new ImportRow(lineNumber, null, "Ожидается 3 колонки: " + CSV_HEADER);
+        }
+
+        CreateCardRequestDto request = new CreateCardRequestDto();
+        try {
+            request.setUserId(columns[0].isBlank() ? null : Long.valueOf(columns[0].strip()));
+        } catch (NumberFormatException e) {
+            return new ImportRow(lineNumber, null, "Некорректный id пользователя: " + columns[0].strip());
+        }
+        request.setCardNumber(columns[1].strip());
+        try {
+            request.setExpiryDate(columns[2].isBlank() ? null : LocalDate.parse(columns[2].strip()));
+        } catch (DateTimeParseException e) {
+            return new ImportRow(lineNumber, null, "Некорректная дата, ожидается ГГГГ-ММ-ДД: " + columns[2].strip());
+        }
+        return new ImportRow(lineNumber, request, null);
+    }
+
+    private void checkSize(int rows) {
+        if (rows > maxRows) {
+            throw new BulkImportTooLargeException("За один запрос можно импортировать не больше " + maxRows + " карт");
+        }
+    }
+
+    private record ImportRow(int row, CreateCardRequestDto request, String parseError) {
+    }
+
+    private record PreparedCard(int row, int position, Long userId, String encryptedCardNumber, String lastFour,
+                                String fingerprint, LocalDate expiryDate, String error) {
+
+        static PreparedCard failed(int row, String error) {
+            return new PreparedCard(row, -1, null, null, null, null, null, error);
+        }
+
+        PreparedCard withPosition(int position) {
+            return new PreparedCard(row, position, userId, encryptedCardNumber, lastFour, fingerprint, expiryDate, error);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.projection.CardSummary;
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.EncryptionUtil;
+
+import java.util.Set;
+
+/**
+ * Карта и ее проекция в {@link CardDto} с маской номера. Номер расшифровывается, только если у карты
+ * еще не заполнены последние четыре цифры.
+ */
+final class CardMapper {
+
+    private CardMapper() {
+    }
+
+    static CardDto toDto(CardSummary card, EncryptionUtil encryptionUtil) {
+        return toDto(card, CardField.ALL, encryptionUtil);
+    }
+
+    /**
+     * Колонки полей вне {@code fields} не выбирались и равны {@code null}, поэтому заполняются только запрошенные поля.
+     */
+    static CardDto toDto(CardSummary card, Set<CardField> fields, EncryptionUtil encryptionUtil) {
+        CardDto cardDto = new CardDto();
+        cardDto.setFields(fields);
+        cardDto.setId(card.id());
+        cardDto.setExpiryDate(card.expiryDate());
+        cardDto.setBalance(card.balance());
+        if (card.status() != null) {
+            cardDto.setStatus(card.status().name());
+        }
+
+        if (card.lastFour() != null) {
+            cardDto.setMaskedCardNumber(CardUtil.maskLastFour(card.lastFour()));
+        } else if (card.cardNumber() != null) {
+            cardDto.setMaskedCardNumber(CardUtil.maskCardNumber(encryptionUtil.decrypt(card.cardNumber())));
+        }
+
+        return cardDto;
+    }
+
+    static CardDto toDto(Card card, EncryptionUtil encryptionUtil) {
+        CardDto cardDto = new CardDto();
+        cardDto.setId(card.getId());
+        cardDto.setExpiryDate(card.getExpiryDate());
+        cardDto.setBalance(card.getBalance());
+        cardDto.setStatus(card.getStatus().name());
+
+        if (card.getLastFour() != null) {
+            cardDto.setMaskedCardNumber(CardUtil.maskLastFour(card.getLastFour()));
+        } else {
+            String decryptedCardNumber = encryptionUtil.decrypt(card.getCardNumber());
+            cardDto.setMaskedCardNumber(CardUtil.maskCardNumber(decryptedCardNumber));
+        }
+
+        return cardDto;
+    }
+}
@@ -2,22 +2,43 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.BalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.dto.CardTransferDto;
 import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Set;
 
 public interface CardService {
 
     CardDto createCard(CreateCardRequestDto createCardRequestDto);
 
-    Page<CardDto> getCardsByUsername(String username, Pageable pageable);
+    /**
+     * Карты пользователя по возрастанию id. Из БД выбираются и в ответ попадают только поля {@code fields}.
+     */
+    Page<CardDto> getUserCards(Long userId, Set<CardField> fields, Pageable pageable);
+
+    /**
+     * ETag страницы {@link #getUserCards}. Меняется с любым изменением карт пользователя; считается одним чтением
+     * по первичному ключу, без запроса самих карт.
+     */
+    String getUserCardsETag(Long userId, Set<CardField> fields, Pageable pageable);
+
+    CardDto requestCardBlock(Long cardId, Long userId);
 
-    CardDto requestCardBlock(Long cardId, String username);
+    TransferDto transferMoney(TransferRequestDto transferRequestDto, Long userId, String idempotencyKey);
 
-    void transferMoney(TransferRequestDto transferRequestDto, String username);
+    Page<CardDto> getAllCards(Set<CardField> fields, Pageable pageable);
 
-    Page<CardDto> getAllCards(Pageable pageable);
+    Slice<CardDto> getAllCardsAfter(Long afterId, Set<CardField> fields, int size);
+
+    Page<CardDto> searchCards(CardSearchFilterDto filter, Pageable pageable);
 
     CardDto blockCardByAdmin(Long cardId);
 
@@ -25,5 +46,9 @@ public interface CardService {
 
     void deleteCardByAdmin(Long cardId);
 
-    BalanceDto getCardBalance(Long cardId, String username);
+    BalanceDto getCardBalance(Long cardId, Long userId);
+
+    CursorPageDto<CardTransferDto> getCardTransfers(Long cardId, Long userId, String cursor, int size);
+
+    CardDto findCardByNumber(String cardNumber);
 }
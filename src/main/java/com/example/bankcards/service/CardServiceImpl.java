@@ -2,38 +2,80 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.BalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.dto.CardTransferDto;
 import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferEntry;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.DuplicateCardException;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
+import com.example.bankcards.repository.TransferEntryRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardSummary;
+import com.example.bankcards.util.CardFingerprintUtil;
 import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.ConstraintViolations;
+import com.example.bankcards.util.CursorUtil;
 import com.example.bankcards.util.EncryptionUtil;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class CardServiceImpl implements CardService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final EncryptionUtil encryptionUtil;
+    private final CardFingerprintUtil cardFingerprintUtil;
+    private final TransferEngine transferEngine;
+    private final TransferLedger transferLedger;
+    private final TransferEntryRepository transferEntryRepository;
+    private final CardBalanceCache cardBalanceCache;
+    private final CardVersionRegistry cardVersionRegistry;
 
     @Autowired
-    public CardServiceImpl(CardRepository cardRepository, UserRepository userRepository, EncryptionUtil encryptionUtil) {
+    public CardServiceImpl(CardRepository cardRepository, UserRepository userRepository, EncryptionUtil encryptionUtil,
+                           CardFingerprintUtil cardFingerprintUtil, TransferEngine transferEngine, TransferLedger transferLedger,
+                           TransferEntryRepository transferEntryRepository, CardBalanceCache cardBalanceCache,
+                           CardVersionRegistry cardVersionRegistry) {
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
         this.encryptionUtil = encryptionUtil;
+        this.cardFingerprintUtil = cardFingerprintUtil;
+        this.transferEngine = transferEngine;
+        this.transferLedger = transferLedger;
+        this.transferEntryRepository = transferEntryRepository;
+        this.cardBalanceCache = cardBalanceCache;
+        this.cardVersionRegistry = cardVersionRegistry;
     }
 
     @Override
@@ -47,38 +89,53 @@ public class CardServiceImpl implements CardService {
 
         String encryptedCardNumber = encryptionUtil.encrypt(createCardRequestDto.getCardNumber());
         newCard.setCardNumber(encryptedCardNumber);
+        newCard.setLastFour(CardUtil.lastFour(createCardRequestDto.getCardNumber()));
+        newCard.setCardFingerprint(cardFingerprintUtil.fingerprint(createCardRequestDto.getCardNumber()));
 
         newCard.setOwner(owner);
         newCard.setExpiryDate(createCardRequestDto.getExpiryDate());
         newCard.setBalance(BigDecimal.ZERO);
         newCard.setStatus(CardStatus.ACTIVE);
 
-        Card savedCard = cardRepository.save(newCard);
-
+        Card savedCard;
+        try {
+            // id берется из последовательности, поэтому INSERT нужно вытолкнуть явно, чтобы дубликат поймался здесь
+            savedCard = cardRepository.saveAndFlush(newCard);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.violates(e, ConstraintViolations.CARD_FINGERPRINT)) {
+                throw new DuplicateCardException("Карта с таким номером уже существует");
+            }
+            throw e;
+        }
+        cardVersionRegistry.cardsChanged(owner.getId());
 
         return mapToDto(savedCard);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<CardDto> getCardsByUsername(String username, Pageable pageable) {
-
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new ResourceNotFoundException("Пользователь с именем " + username + " не найден"));
-
-        Page<Card> cardsPage = cardRepository.findByOwnerId(user.getId(), pageable);
+    public Page<CardDto> getUserCards(Long userId, Set<CardField> fields, Pageable pageable) {
+        return cardRepository.searchSummaries(CardSpecifications.ownedBy(userId), fields, pageable)
+                .map(card -> mapToDto(card, fields));
+    }
 
-        return cardsPage.map(this::mapToDto);
+    /**
+     * ETag страницы: версия карт пользователя и параметры запроса, без чтения самих карт.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getUserCardsETag(Long userId, Set<CardField> fields, Pageable pageable) {
+        return userId + "-" + cardVersionRegistry.version(userId) + "-" + pageable.getPageNumber() + "-"
+                + pageable.getPageSize() + "-" + fields.stream().map(CardField::getName).collect(Collectors.joining(","));
     }
 
     @Override
     @Transactional
-    public CardDto requestCardBlock(Long cardId, String username) {
+    public CardDto requestCardBlock(Long cardId, Long userId) {
 
-        Card card = cardRepository.findById(cardId).orElseThrow(() -> new ResourceNotFoundException("Карта с id " + cardId + " не найдена"));
+        Card card = cardRepository.findByIdAndOwnerId(cardId, userId)
+                .orElseThrow(() -> cardNotAccessible(cardId, "Доступ запрещен: вы не можете управлять чужой картой"));
 
-        if (!card.getOwner().getUsername().equals(username)) {
-            throw new AccessDeniedException("Доступ запрещен: вы не можете управлять чужой картой");
-        }
         if (card.getStatus() == CardStatus.BLOCKED) {
             throw new IllegalStateException("Карта уже заблокирована");
         }
@@ -91,13 +148,13 @@ public class CardServiceImpl implements CardService {
 
         card.setStatus(CardStatus.PENDING_BLOCK);
         Card blockedCard = cardRepository.save(card);
+        cardVersionRegistry.cardsChanged(userId);
 
         return mapToDto(blockedCard);
     }
 
     @Override
-    @Transactional
-    public void transferMoney(TransferRequestDto transferRequestDto, String username) {
+    public TransferDto transferMoney(TransferRequestDto transferRequestDto, Long userId, String idempotencyKey) {
 
         Long fromCardId = transferRequestDto.getFromCardId();
         Long toCardId = transferRequestDto.getToCardId();
@@ -106,34 +163,53 @@ public class CardServiceImpl implements CardService {
         if (fromCardId.equals(toCardId)) {
             throw new IllegalArgumentException("Нельзя перевести деньги на ту же самую карту");
         }
-
-        Card fromCard = cardRepository.findById(fromCardId).orElseThrow(() -> new ResourceNotFoundException("Карта-отправитель с id " + fromCardId + " не найдена"));
-        Card toCard = cardRepository.findById(toCardId).orElseThrow(() -> new ResourceNotFoundException("Карта-отправитель с id " + fromCardId + " не найдена"));
-
-        if (!fromCard.getOwner().getUsername().equals(username) || !toCard.getOwner().getUsername().equals(username)) {
-            throw new AccessDeniedException("Доступ запрещен: вы можете переводить деньги только между своими картами");
+        if (idempotencyKey == null) {
+            return mapToDto(executeTransfer(fromCardId, toCardId, amount, userId, null), false);
         }
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new IllegalStateException("Карта-отправитель неактивна. Перевод невозможен");
+        if (!StringUtils.hasText(idempotencyKey) || idempotencyKey.length() > 64) {
+            throw new IllegalArgumentException("Ключ идемпотентности должен быть непустым и не длиннее 64 символов");
         }
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new IllegalStateException("Карта-получатель неактивна. Перевод невозможен");
+
+        Optional<Transfer> stored = transferLedger.findByIdempotencyKey(userId, idempotencyKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), transferRequestDto);
         }
-        if (fromCard.getBalance().compareTo(amount) <= 0) {
-            throw new IllegalStateException("Недостаточно средств на карте-отправителе");
+
+        Transfer transfer;
+        try {
+            transfer = executeTransfer(fromCardId, toCardId, amount, userId, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный запрос с тем же ключом успел закоммитить перевод раньше, эта транзакция откатилась
+            Transfer concurrent = transferLedger.findByIdempotencyKey(userId, idempotencyKey).orElseThrow(() -> e);
+            return replay(concurrent, transferRequestDto);
         }
+        transferLedger.remember(userId, idempotencyKey, transfer);
 
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
+        return mapToDto(transfer, false);
+    }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CardDto> getAllCards(Set<CardField> fields, Pageable pageable) {
+        return cardRepository.searchSummaries(Specification.unrestricted(), fields, pageable)
+                .map(card -> mapToDto(card, fields));
     }
 
+    /**
+     * Карты с id больше {@code afterId} по возрастанию id. Поиск по первичному ключу вместо OFFSET
+     * и без COUNT, поэтому время ответа не зависит от глубины страницы.
+     */
     @Override
-    @Transactional
-    public Page<CardDto> getAllCards(Pageable pageable) {
-        return cardRepository.findAll(pageable).map(this::mapToDto);
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getAllCardsAfter(Long afterId, Set<CardField> fields, int size) {
+        return cardRepository.searchSummariesAfter(Specification.unrestricted(), fields, afterId, size)
+                .map(card -> mapToDto(card, fields));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CardDto> searchCards(CardSearchFilterDto filter, Pageable pageable) {
+        return cardRepository.searchSummaries(CardSpecifications.matching(filter), pageable).map(this::mapToDto);
     }
 
     @Override
@@ -145,6 +221,7 @@ public class CardServiceImpl implements CardService {
             throw new IllegalStateException("Карта уже заблокирована.");
         }
         card.setStatus(CardStatus.BLOCKED);
+        cardVersionRegistry.cardsChanged(card.getOwner().getId());
         return mapToDto(cardRepository.save(card));
     }
 
@@ -158,45 +235,144 @@ public class CardServiceImpl implements CardService {
             throw new IllegalStateException("Активировать можно только заблокированную карту.");
         }
         card.setStatus(CardStatus.ACTIVE);
+        cardVersionRegistry.cardsChanged(card.getOwner().getId());
         return mapToDto(cardRepository.save(card));
     }
 
     @Override
     @Transactional
     public void deleteCardByAdmin(Long cardId) {
-        if (!cardRepository.existsById(cardId)) {
+        if (cardRepository.softDelete(cardId, Instant.now()) == 0) {
             throw new ResourceNotFoundException("Карта с id " + cardId + " не найдена");
         }
-        cardRepository.deleteById(cardId);
+        cardBalanceCache.evictAfterCommit(cardId);
+        cardVersionRegistry.cardOwnersChanged(List.of(cardId));
     }
 
+    /**
+     * Баланс из {@link CardBalanceCache}: при попадании без транзакции и без запросов к БД,
+     * принадлежность карты проверяется по закэшированному id владельца.
+     */
     @Override
-    @Transactional
-    public BalanceDto getCardBalance(Long cardId, String username) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new ResourceNotFoundException("Карта с id " + cardId + " не найдена"));
-
-        if (!card.getOwner().getUsername().equals(username)) {
+    public BalanceDto getCardBalance(Long cardId, Long userId) {
+        CardBalanceCache.CachedBalance cardBalance = cardBalanceCache.get(cardId);
+        if (cardBalance == null) {
+            throw new ResourceNotFoundException("Карта с id " + cardId + " не найдена");
+        }
+        if (!cardBalance.ownerId().equals(userId)) {
             throw new AccessDeniedException("Доступ запрещен: вы можете смотреть баланс только своей карты");
         }
 
         BalanceDto balanceDto = new BalanceDto();
-        balanceDto.setBalance(card.getBalance());
+        balanceDto.setBalance(cardBalance.balance());
+        balanceDto.setVersion(cardBalance.version());
 
         return balanceDto;
     }
 
-    private CardDto mapToDto(Card card) {
-        CardDto cardDto = new CardDto();
-        cardDto.setId(card.getId());
-        cardDto.setExpiryDate(card.getExpiryDate());
-        cardDto.setBalance(card.getBalance());
-        cardDto.setStatus(card.getStatus().name());
+    /**
+     * История движений по карте, от новых к старым. Пагинация по курсору {@code (created_at, id)}
+     * без OFFSET и COUNT; принадлежность карты проверяется в том же запросе.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardTransferDto> getCardTransfers(Long cardId, Long userId, String cursor, int size) {
 
-        String decryptedCardNumber = encryptionUtil.decrypt(card.getCardNumber());
-        cardDto.setMaskedCardNumber(CardUtil.maskCardNumber(decryptedCardNumber));
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
 
-        return cardDto;
+        List<TransferEntry> entries;
+        if (cursor == null) {
+            entries = transferEntryRepository.findCardHistory(cardId, userId, limit);
+        } else {
+            CursorUtil.Position position = CursorUtil.decode(cursor);
+            entries = transferEntryRepository.findCardHistoryBefore(cardId, userId, position.createdAt(), position.id(), limit);
+        }
+
+        if (entries.isEmpty() && !cardRepository.existsByIdAndOwnerId(cardId, userId)) {
+            throw new ResourceNotFoundException("Карта с id " + cardId + " не найдена");
+        }
+
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+            TransferEntry last = entries.get(pageSize - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+
+        return new CursorPageDto<>(entries.stream().map(this::mapToDto).toList(), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardDto findCardByNumber(String cardNumber) {
+        Card card = cardRepository.findByCardFingerprint(cardFingerprintUtil.fingerprint(cardNumber))
+                .orElseThrow(() -> new ResourceNotFoundException("Карта с указанным номером не найдена"));
+
+        return mapToDto(card);
+    }
+
+    /**
+     * Перевод и обновление закэшированных балансов обеих карт. Обновление и при исключении: исход
+     * коммита может быть неизвестен, а для карт, которых нет в кэше, оно ничего не стоит.
+     */
+    private Transfer executeTransfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId, String idempotencyKey) {
+        try {
+            return transferEngine.transfer(fromCardId, toCardId, amount, userId, idempotencyKey);
+        } finally {
+            cardBalanceCache.refresh(fromCardId, toCardId);
+        }
+    }
+
+    /**
+     * Карта не нашлась по паре (id, владелец): отдельным запросом отличаем чужую карту от несуществующей.
+     */
+    private RuntimeException cardNotAccessible(Long cardId, String accessDeniedMessage) {
+        if (cardRepository.existsById(cardId)) {
+            return new AccessDeniedException(accessDeniedMessage);
+        }
+        return new ResourceNotFoundException("Карта с id " + cardId + " не найдена");
+    }
+
+    private TransferDto replay(Transfer transfer, TransferRequestDto transferRequestDto) {
+        if (!transfer.getFromCardId().equals(transferRequestDto.getFromCardId())
+                || !transfer.getToCardId().equals(transferRequestDto.getToCardId())
+                || transfer.getAmount().compareTo(transferRequestDto.getAmount()) != 0) {
+            throw new IdempotencyKeyConflictException("Ключ идемпотентности уже использован для другого перевода");
+        }
+        return mapToDto(transfer, true);
+    }
+
+    private TransferDto mapToDto(Transfer transfer, boolean replayed) {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setId(transfer.getId());
+        transferDto.setFromCardId(transfer.getFromCardId());
+        transferDto.setToCardId(transfer.getToCardId());
+        transferDto.setAmount(transfer.getAmount());
+        transferDto.setCreatedAt(transfer.getCreatedAt());
+        transferDto.setReplayed(replayed);
+        return transferDto;
+    }
+
+    private CardTransferDto mapToDto(TransferEntry entry) {
+        CardTransferDto cardTransferDto = new CardTransferDto();
+        cardTransferDto.setTransferId(entry.getTransferId());
+        cardTransferDto.setCounterpartyCardId(entry.getCounterpartyCardId());
+        cardTransferDto.setAmount(entry.getAmount());
+        cardTransferDto.setCreatedAt(entry.getCreatedAt());
+        return cardTransferDto;
+    }
+
+    private CardDto mapToDto(CardSummary card) {
+        return CardMapper.toDto(card, encryptionUtil);
+    }
+
+    private CardDto mapToDto(CardSummary card, Set<CardField> fields) {
+        return CardMapper.toDto(card, fields, encryptionUtil);
+    }
+
+    private CardDto mapToDto(Card card) {
+        return CardMapper.toDto(card, encryptionUtil);
     }
 
 }
@@ -0,0 +1,10 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeRequestDto;
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.entity.CardStatusTransition;
+
+public interface CardStatusBulkService {
+
+    BulkStatusChangeResultDto changeStatus(CardStatusTransition transition, BulkStatusChangeRequestDto request);
+}
@@ -0,0 +1,108 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeRequestDto;
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
+import com.example.bankcards.repository.projection.CardIdStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Массовая смена статуса карт. Карты обрабатываются порциями по {@code chunkSize} id, каждая порция —
+ * отдельная короткая транзакция из двух запросов: {@code SELECT ... FOR UPDATE} статусов порции
+ * и один {@code UPDATE ... WHERE status IN (...)}. Блокировки держатся только на время порции.
+ */
+@Service
+public class CardStatusBulkServiceImpl implements CardStatusBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardStatusBulkServiceImpl.class);
+
+    private final CardRepository cardRepository;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public CardStatusBulkServiceImpl(CardRepository cardRepository,
+                                     CardVersionRegistry cardVersionRegistry,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${cards.bulk-status.chunk-size:500}") int chunkSize) {
+        this.cardRepository = cardRepository;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BulkStatusChangeResultDto changeStatus(CardStatusTransition transition, BulkStatusChangeRequestDto request) {
+
+        long start = System.nanoTime();
+        BulkStatusChangeResultDto result = new BulkStatusChangeResultDto(transition.getTarget());
+
+        if (request.getIds() != null) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                changeChunk(transition, ids.subList(from, Math.min(from + chunkSize, ids.size())), result);
+            }
+        } else {
+            // По фильтру берутся только карты, для которых переход допустим; id выбираются порциями по возрастанию
+            Specification<Card> spec = CardSpecifications.matching(request.getFilter())
+                    .and(CardSpecifications.hasStatusIn(transition.getFrom()));
+            long afterId = 0;
+            List<Long> ids;
+            while (!(ids = cardRepository.findIds(spec, afterId, chunkSize)).isEmpty()) {
+                changeChunk(transition, ids, result);
+                afterId = ids.get(ids.size() - 1);
+            }
+        }
+
+        log.info("Массовый перевод карт в {}: изменено {}, отклонено {} за {} мс", transition.getTarget(),
+                result.getChanged().size(), result.getRejected().size(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private void changeChunk(CardStatusTransition transition, List<Long> ids, BulkStatusChangeResultDto result) {
+
+        List<BulkStatusChangeResultDto.Rejection> rejected = new ArrayList<>();
+        List<Long> changed = transactionTemplate.execute(status -> {
+            Map<Long, CardIdStatus> found = new HashMap<>();
+            cardRepository.findStatusesForUpdate(ids).forEach(card -> found.put(card.id(), card));
+
+            List<Long> allowed = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                CardIdStatus card = found.get(id);
+                if (card == null) {
+                    rejected.add(new BulkStatusChangeResultDto.Rejection(id, "Карта с id " + id + " не найдена"));
+                } else if (!transition.isAllowedFrom(card.status())) {
+                    rejected.add(new BulkStatusChangeResultDto.Rejection(id, transition.getRejectionMessage()));
+                } else {
+                    allowed.add(id);
+                }
+            }
+            if (!allowed.isEmpty()) {
+                // Строки уже заблокированы выше, условие по статусу в UPDATE остается страховкой
+                cardRepository.updateStatus(allowed, transition.getFrom(), transition.getTarget());
+                cardVersionRegistry.cardOwnersChanged(allowed);
+            }
+            return allowed;
+        });
+
+        result.getChanged().addAll(changed);
+        result.getRejected().addAll(rejected);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Версия карт пользователя ({@code users.cards_version}), из которой строятся ETag его списка карт и балансов.
+ * Версия растет в той же транзакции, что и изменение карт, поэтому после коммита новую версию видят все
+ * экземпляры приложения, а проверка ETag стоит одного чтения по первичному ключу.
+ * <p>
+ * Версия увеличивается через JDBC, а не через сущность {@link com.example.bankcards.entity.User}: запись в
+ * {@code users} средствами Hibernate сбрасывала бы кэш второго уровня пользователей на каждом переводе.
+ * Строки пользователей блокируются после строк карт и по возрастанию id, чтобы транзакции, меняющие карты,
+ * не блокировали друг друга.
+ */
+@Component
+public class CardVersionRegistry {
+
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public CardVersionRegistry(UserRepository userRepository, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long version(Long userId) {
+        return userRepository.findCardsVersionById(userId).orElse(0L);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsChanged(Long userId) {
+        cardsChanged(List.of(userId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsChanged(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        // Изменения карт, еще ждущие flush, отправляются сейчас: их строки должны блокироваться раньше users
+        entityManager.flush();
+        SqlParameterSource[] users = new TreeSet<>(userIds).stream()
+                .map(id -> new MapSqlParameterSource("id", id))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("update users set cards_version = cards_version + 1 where id = :id", users);
+    }
+
+    /**
+     * Увеличивает версию владельцев карт {@code cardIds}, включая уже удаленные карты.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardOwnersChanged(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return;
+        }
+        cardsChanged(jdbcTemplate.queryForList("select distinct user_id from cards where id in (:ids)",
+                Map.of("ids", cardIds), Long.class));
+    }
+}
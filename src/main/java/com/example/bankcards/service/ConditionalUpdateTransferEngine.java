@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Перевод двумя условными UPDATE в одной транзакции: списание проходит, только если карта
+ * принадлежит пользователю, активна и на ней достаточно средств; зачисление — если карта-получатель
+ * принадлежит пользователю и активна. Успех определяется числом измененных строк, сущности не загружаются.
+ * Строки обновляются в порядке возрастания id, чтобы встречные переводы не взаимоблокировались.
+ * Причина отказа выясняется отдельным чтением только на неуспешном пути.
+ */
+@Component
+@ConditionalOnProperty(name = "cards.transfer.engine", havingValue = "conditional")
+public class ConditionalUpdateTransferEngine implements TransferEngine {
+
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final TransferLedger transferLedger;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final long lockTimeoutMs;
+
+    @Autowired
+    public ConditionalUpdateTransferEngine(CardRepository cardRepository,
+                                           JdbcTemplate jdbcTemplate,
+                                           RetryingTransactionExecutor transactionExecutor,
+                                           TransferLedger transferLedger,
+                                           CardVersionRegistry cardVersionRegistry,
+                                           @Value("${cards.transfer.lock-timeout-ms:3000}") long lockTimeoutMs) {
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionExecutor = transactionExecutor;
+        this.transferLedger = transferLedger;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @Override
+    public Transfer transfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId, String idempotencyKey) {
+        return transactionExecutor.execute(status -> {
+            doTransfer(fromCardId, toCardId, amount, userId);
+            cardVersionRegistry.cardsChanged(userId);
+            return transferLedger.record(fromCardId, toCardId, amount, userId, idempotencyKey);
+        });
+    }
+
+    void doTransfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId) {
+
+        jdbcTemplate.queryForObject("select set_config('lock_timeout', ?, true)", String.class, lockTimeoutMs + "ms");
+
+        if (fromCardId < toCardId) {
+            debit(fromCardId, amount, userId);
+            credit(toCardId, amount, userId);
+        } else {
+            credit(toCardId, amount, userId);
+            debit(fromCardId, amount, userId);
+        }
+    }
+
+    private void debit(Long cardId, BigDecimal amount, Long userId) {
+        if (cardRepository.debitIfAllowed(cardId, amount, userId, CardStatus.ACTIVE) == 1) {
+            return;
+        }
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException("Карта-отправитель с id " + cardId + " не найдена"));
+        checkOwnership(card, userId);
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            throw new IllegalStateException("Карта-отправитель неактивна. Перевод невозможен");
+        }
+        throw new IllegalStateException("Недостаточно средств на карте-отправителе");
+    }
+
+    private void credit(Long cardId, BigDecimal amount, Long userId) {
+        if (cardRepository.creditIfAllowed(cardId, amount, userId, CardStatus.ACTIVE) == 1) {
+            return;
+        }
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException("Карта-получатель с id " + cardId + " не найдена"));
+        checkOwnership(card, userId);
+        throw new IllegalStateException("Карта-получатель неактивна. Перевод невозможен");
+    }
+
+    private void checkOwnership(Card card, Long userId) {
+        if (card.getOwner().getId() != userId) {
+            throw new AccessDeniedException("Доступ запрещен: вы можете переводить деньги только между своими картами");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Перевод с пессимистичной блокировкой обеих карт ({@code SELECT ... FOR UPDATE}).
+ * Карты всегда блокируются в порядке возрастания id, поэтому встречные переводы A→B и B→A
+ * не могут заблокировать друг друга; ожидание блокировки ограничено {@code cards.transfer.lock-timeout-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "cards.transfer.engine", havingValue = "locking", matchIfMissing = true)
+public class LockingTransferEngine implements TransferEngine {
+
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final TransferLedger transferLedger;
+    private final CardVersionRegistry cardVersionRegistry;
+    private final long lockTimeoutMs;
+
+    @Autowired
+    public LockingTransferEngine(CardRepository cardRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 RetryingTransactionExecutor transactionExecutor,
+                                 TransferLedger transferLedger,
+                                 CardVersionRegistry cardVersionRegistry,
+                                 @Value("${cards.transfer.lock-timeout-ms:3000}") long lockTimeoutMs) {
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionExecutor = transactionExecutor;
+        this.transferLedger = transferLedger;
+        this.cardVersionRegistry = cardVersionRegistry;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @Override
+    public Transfer transfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId, String idempotencyKey) {
+        return transactionExecutor.execute(status -> {
+            doTransfer(fromCardId, toCardId, amount, userId);
+            cardVersionRegistry.cardsChanged(userId);
+            return transferLedger.record(fromCardId, toCardId, amount, userId, idempotencyKey);
+        });
+    }
+
+    void doTransfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId) {
+
+        jdbcTemplate.queryForObject("select set_config('lock_timeout', ?, true)", String.class, lockTimeoutMs + "ms");
+
+        Card fromCard;
+        Card toCard;
+        if (fromCardId < toCardId) {
+            fromCard = lockCard(fromCardId, "Карта-отправитель с id " + fromCardId + " не найдена");
+            toCard = lockCard(toCardId, "Карта-получатель с id " + toCardId + " не найдена");
+        } else {
+            toCard = lockCard(toCardId, "Карта-получатель с id " + toCardId + " не найдена");
+            fromCard = lockCard(fromCardId, "Карта-отправитель с id " + fromCardId + " не найдена");
+        }
+
+        if (fromCard.getOwner().getId() != userId || toCard.getOwner().getId() != userId) {
+            throw new AccessDeniedException("Доступ запрещен: вы можете переводить деньги только между своими картами");
+        }
+        if (fromCard.getStatus() != CardStatus.ACTIVE) {
+            throw new IllegalStateException("Карта-отправитель неактивна. Перевод невозможен");
+        }
+        if (toCard.getStatus() != CardStatus.ACTIVE) {
+            throw new IllegalStateException("Карта-получатель неактивна. Перевод невозможен");
+        }
+        if (fromCard.getBalance().compareTo(amount) <= 0) {
+            throw new IllegalStateException("Недостаточно средств на карте-отправителе");
+        }
+
+        fromCard.setBalance(fromCard.getBalance().subtract(amount));
+        toCard.setBalance(toCard.getBalance().add(amount));
+
+        cardRepository.save(fromCard);
+        cardRepository.save(toCard);
+    }
+
+    private Card lockCard(Long cardId, String notFoundMessage) {
+        return cardRepository.findByIdForUpdate(cardId).orElseThrow(() -> new ResourceNotFoundException(notFoundMessage));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankcards.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выполняет callback в отдельной транзакции и повторяет ее при конфликтах блокировок
+ * (таймаут ожидания блокировки, deadlock, ошибка сериализации).
+ * Каждая попытка — новая транзакция, поэтому вызывать нужно вне уже открытой транзакции.
+ */
+@Component
+public class RetryingTransactionExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryingTransactionExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    @Autowired
+    public RetryingTransactionExecutor(PlatformTransactionManager transactionManager,
+                                       @Value("${cards.transfer.max-attempts:3}") int maxAttempts,
+                                       @Value("${cards.transfer.retry-backoff-ms:20}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(TransactionCallback<T> callback) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(callback);
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Конфликт блокировок, попытка {} из {}: {}", attempt, maxAttempts, e.getMessage());
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Перевод прерван", e);
+        }
+    }
+}
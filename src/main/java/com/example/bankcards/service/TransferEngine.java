@@ -0,0 +1,15 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Transfer;
+
+import java.math.BigDecimal;
+
+/**
+ * Способ проведения перевода между картами одного пользователя.
+ * Проверка входных данных (например, перевод на ту же карту) делается до вызова движка.
+ * Движение средств и запись в журнал переводов выполняются в одной транзакции.
+ */
+public interface TransferEngine {
+
+    Transfer transfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId, String idempotencyKey);
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferEntry;
+import com.example.bankcards.repository.TransferEntryRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Журнал переводов: заголовок перевода и две проводки (списание и зачисление).
+ * Строки пишутся в транзакции перевода и уходят в БД пакетом при коммите.
+ * Недавние результаты по ключу идемпотентности держатся в ограниченном кэше,
+ * источником истины остается уникальный индекс {@code (user_id, idempotency_key)}.
+ */
+@Component
+public class TransferLedger {
+
+    private final TransferRepository transferRepository;
+    private final TransferEntryRepository transferEntryRepository;
+    private final Cache<String, Transfer> idempotencyCache;
+
+    @Autowired
+    public TransferLedger(TransferRepository transferRepository,
+                          TransferEntryRepository transferEntryRepository,
+                          @Value("${cards.transfer.idempotency.cache-size:10000}") long cacheSize,
+                          @Value("${cards.transfer.idempotency.cache-ttl:PT24H}") Duration cacheTtl) {
+        this.transferRepository = transferRepository;
+        this.transferEntryRepository = transferEntryRepository;
+        this.idempotencyCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Записывает перевод в журнал. Должен вызываться внутри транзакции, в которой двигаются деньги.
+     */
+    public Transfer record(Long fromCardId, Long toCardId, BigDecimal amount, Long userId, String idempotencyKey) {
+
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        Transfer transfer = new Transfer();
+        transfer.setUserId(userId);
+        transfer.setFromCardId(fromCardId);
+        transfer.setToCardId(toCardId);
+        transfer.setAmount(amount);
+        transfer.setIdempotencyKey(idempotencyKey);
+        transfer.setCreatedAt(createdAt);
+        transfer = transferRepository.save(transfer);
+
+        transferEntryRepository.saveAll(List.of(
+                new TransferEntry(transfer.getId(), fromCardId, toCardId, amount.negate(), createdAt),
+                new TransferEntry(transfer.getId(), toCardId, fromCardId, amount, createdAt)
+        ));
+
+        return transfer;
+    }
+
+    public Optional<Transfer> findByIdempotencyKey(Long userId, String idempotencyKey) {
+
+        String cacheKey = cacheKey(userId, idempotencyKey);
+        Transfer cached = idempotencyCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Transfer> stored = transferRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+        stored.ifPresent(transfer -> idempotencyCache.put(cacheKey, transfer));
+        return stored;
+    }
+
+    /**
+     * Запоминает результат уже закоммиченного перевода, чтобы повтор запроса не ходил в БД.
+     */
+    public void remember(Long userId, String idempotencyKey, Transfer transfer) {
+        idempotencyCache.put(cacheKey(userId, idempotencyKey), transfer);
+    }
+
+    private String cacheKey(Long userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+}
@@ -5,4 +5,6 @@ import com.example.bankcards.dto.RegisterDto;
 
 public interface UserService {
     String registerUser(RegisterDto registerDto);
+
+    void revokeTokens(Long userId);
 }
@@ -3,10 +3,13 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.RegisterDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 
@@ -15,11 +18,13 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, TokenVersionRegistry tokenVersionRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenVersionRegistry = tokenVersionRegistry;
     }
 
 
@@ -43,4 +48,17 @@ public class UserServiceImpl implements UserService {
 
         return "Пользователь успешно зарегистрирован!";
     }
+
+    @Override
+    @Transactional
+    public void revokeTokens(Long userId) {
+
+        if (userRepository.incrementTokenVersion(userId) == 0) {
+            throw new ResourceNotFoundException("Не найден пользователь с id: " + userId);
+        }
+
+        int newVersion = userRepository.findTokenVersionById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Не найден пользователь с id: " + userId));
+        tokenVersionRegistry.update(userId, newVersion);
+    }
 }
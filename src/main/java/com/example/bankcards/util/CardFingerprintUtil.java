@@ -0,0 +1,50 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.EncryptionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Детерминированный отпечаток номера карты (HMAC-SHA256 в hex).
+ * Позволяет искать карту по номеру и проверять уникальность через индекс, не расшифровывая таблицу.
+ */
+@Component
+public class CardFingerprintUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int POOL_SIZE = 64;
+
+    private final SecretKeySpec secretKey;
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public CardFingerprintUtil(@Value("${encryption.fingerprint-secret}") String secret) {
+
+        if (secret.length() < 32) {
+            throw new IllegalArgumentException("Ключ для отпечатка номера карты должен быть не короче 32 символов");
+        }
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String fingerprint(String cardNumber) {
+        try {
+            Mac mac = macs.poll();
+            if (mac == null) {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(secretKey);
+            }
+            byte[] hash = mac.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+            macs.offer(mac);
+            return HexFormat.of().formatHex(hash);
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionException("Ошибка при вычислении отпечатка номера карты", e);
+        }
+    }
+}
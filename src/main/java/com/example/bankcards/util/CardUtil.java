@@ -12,4 +12,18 @@ public class CardUtil {
 
         return maskedString;
     }
+
+    public static String lastFour(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            return null;
+        }
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    public static String maskLastFour(String lastFour) {
+        if (lastFour == null || lastFour.length() != 4) {
+            return "****";
+        }
+        return "*".repeat(12) + lastFour;
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.bankcards.util;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Какое ограничение БД нарушено. Имя берется из исключения Hibernate, а если драйвер его не сообщил —
+ * ищется в тексте ошибки.
+ */
+public final class ConstraintViolations {
+
+    /** Уникальный индекс по отпечатку номера: карта с таким номером уже есть. */
+    public static final String CARD_FINGERPRINT = "ux_cards_card_fingerprint";
+    /** Внешний ключ на владельца карты. */
+    public static final String CARD_OWNER = "fk_cards_user";
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean violates(DataIntegrityViolationException e, String constraint) {
+        String name = constraintName(e);
+        String text = name != null ? name : e.getMessage();
+        // H2 и другие БД могут вернуть имя в верхнем регистре или с префиксом схемы
+        return text != null && text.toLowerCase(Locale.ROOT).contains(constraint);
+    }
+
+    /**
+     * Имя нарушенного ограничения или {@code null}, если драйвер его не сообщил.
+     */
+    public static String constraintName(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
+}
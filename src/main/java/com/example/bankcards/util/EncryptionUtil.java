@@ -6,18 +6,40 @@ import org.springframework.beans.factory.annotation.Value;
 
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * Шифрование номеров карт.
+ * Новые значения шифруются AES-GCM и хранятся в формате {@code v1:base64(iv || ciphertext || tag)}.
+ * Значения без префикса считаются старым форматом (AES/ECB) и только расшифровываются.
+ * Экземпляры {@link Cipher} переиспользуются через пулы, чтобы не искать провайдера
+ * и не разворачивать ключ на каждой строке.
+ */
 @Component
 public class EncryptionUtil {
 
 
     private static final String ALGORITHM = "AES";
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String LEGACY_TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String GCM_PREFIX = "v1:";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final int POOL_SIZE = 64;
 
     private final Key secretKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final BlockingQueue<Cipher> gcmCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Cipher> legacyDecryptCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
 
 
     public EncryptionUtil(@Value("${encryption.secret}") String secret) {
@@ -31,10 +53,19 @@ public class EncryptionUtil {
 
     public String encrypt(String data) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encryptedBytes = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = borrowGcmCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            byte[] plain = data.getBytes(StandardCharsets.UTF_8);
+
+            ByteBuffer out = ByteBuffer.allocate(GCM_IV_LENGTH + cipher.getOutputSize(plain.length));
+            out.put(iv);
+            cipher.doFinal(ByteBuffer.wrap(plain), out);
+            gcmCiphers.offer(cipher);
+
+            return GCM_PREFIX + Base64.getEncoder().encodeToString(out.array());
         } catch (Exception e) {
             throw new EncryptionException("Ошибка в шифровании данных", e);
         }
@@ -43,13 +74,36 @@ public class EncryptionUtil {
 
     public String decrypt(String encryptedData) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
+            if (encryptedData.startsWith(GCM_PREFIX)) {
+                return decryptGcm(Base64.getDecoder().decode(encryptedData.substring(GCM_PREFIX.length())));
+            }
+            return decryptLegacy(Base64.getDecoder().decode(encryptedData));
         } catch (Exception e) {
             throw new EncryptionException("Ошибка в дешифровке данных", e);
         }
     }
+
+    private String decryptGcm(byte[] payload) throws GeneralSecurityException {
+        Cipher cipher = borrowGcmCipher();
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_BITS, payload, 0, GCM_IV_LENGTH));
+        byte[] decryptedBytes = cipher.doFinal(payload, GCM_IV_LENGTH, payload.length - GCM_IV_LENGTH);
+        gcmCiphers.offer(cipher);
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    private String decryptLegacy(byte[] payload) throws GeneralSecurityException {
+        Cipher cipher = legacyDecryptCiphers.poll();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(LEGACY_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey);
+        }
+        byte[] decryptedBytes = cipher.doFinal(payload);
+        legacyDecryptCiphers.offer(cipher);
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    private Cipher borrowGcmCipher() throws GeneralSecurityException {
+        Cipher cipher = gcmCiphers.poll();
+        return cipher != null ? cipher : Cipher.getInstance(GCM_TRANSFORMATION);
+    }
 }
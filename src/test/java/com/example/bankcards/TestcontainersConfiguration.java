@@ -0,0 +1,21 @@
+package com.example.bankcards;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * PostgreSQL в контейнере для интеграционных тестов (та же версия, что и в docker-compose.yml).
+ * Тесты с этой конфигурацией помечаются {@code @Testcontainers(disabledWithoutDocker = true)}
+ * и пропускаются, если Docker недоступен.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class TestcontainersConfiguration {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgresContainer() {
+        return new PostgreSQLContainer<>("postgres:15");
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.function.Supplier;
+
+/**
+ * Задержка списка карт администратора на первой и на 10 000-й странице:
+ * режим страниц (OFFSET + COUNT) против курсорного режима {@code after=<id>}.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=AdminCardListingBenchmark}
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class AdminCardListingBenchmark {
+
+    private static final int CARDS = 500_000;
+    private static final int PAGE_SIZE = 10;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void firstVersusDeepPageLatency() {
+
+        jdbcTemplate.update("insert into cards (card_number, last_four, expiry_date, user_id, balance, status) " +
+                "select 'bench-' || g, lpad((g % 10000)::text, 4, '0'), current_date + 365, " +
+                "(select id from users where username = 'user001'), 0, 'ACTIVE' " +
+                "from generate_series(1, ?) g", CARDS);
+        jdbcTemplate.execute("analyze cards");
+
+        long firstId = jdbcTemplate.queryForObject("select min(id) from cards", Long.class) - 1;
+        long deepId = jdbcTemplate.queryForObject("select id from cards order by id offset ? limit 1", Long.class,
+                (long) DEEP_PAGE * PAGE_SIZE - 1);
+
+        System.out.printf("%-28s %12s%n", "mode", "avg ms");
+        report("page 1 (offset)", () -> cardService.getAllCards(CardField.ALL, PageRequest.of(0, PAGE_SIZE)));
+        report("page 10000 (offset)", () -> cardService.getAllCards(CardField.ALL, PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE)));
+        report("page 1 (after=<id>)", () -> cardService.getAllCardsAfter(firstId, CardField.ALL, PAGE_SIZE));
+        report("page 10000 (after=<id>)", () -> cardService.getAllCardsAfter(deepId, CardField.ALL, PAGE_SIZE));
+    }
+
+    private void report(String mode, Supplier<Slice<CardDto>> query) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        double avgMs = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        System.out.printf("%-28s %12.2f%n", mode, avgMs);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.service.CardImportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Импорт 50 000 карт одним запросом: порции по {@code cards.bulk-import.chunk-size} строк,
+ * id из последовательности пачками по 50, INSERT пакетами JDBC.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=CardBulkImportBenchmark}
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "cards.backfill.initial-delay=3600000"})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class CardBulkImportBenchmark {
+
+    private static final int CARDS = 50_000;
+
+    @Autowired
+    private CardImportService cardImportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importFiftyThousandCards() {
+
+        Long userId = jdbcTemplate.queryForObject("select id from users where username = 'user001'", Long.class);
+        long before = jdbcTemplate.queryForObject("select count(*) from cards", Long.class);
+
+        List<CreateCardRequestDto> requests = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            CreateCardRequestDto request = new CreateCardRequestDto();
+            request.setUserId(userId);
+            request.setCardNumber(String.format("7%015d", i));
+            request.setExpiryDate(LocalDate.now().plusYears(3));
+            requests.add(request);
+        }
+
+        long start = System.nanoTime();
+        BulkImportResultDto result = cardImportService.importCards(requests);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        assertEquals(CARDS, result.getCreated());
+        assertEquals(before + CARDS, jdbcTemplate.queryForObject("select count(*) from cards", Long.class));
+        System.out.printf("Импортировано %d карт за %.2f с, %.0f карт/с%n", CARDS, seconds, CARDS / seconds);
+
+        // Повтор того же запроса: все строки отклоняются как дубликаты, ничего не вставляется
+        BulkImportResultDto again = cardImportService.importCards(requests);
+        assertEquals(CARDS, again.getFailed());
+    }
+}
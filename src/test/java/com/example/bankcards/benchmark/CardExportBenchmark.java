@@ -0,0 +1,125 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.service.CardExportFormat;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Выгрузка 1 000 000 карт при маленькой куче: профиль benchmark запускает тесты с {@code -Xmx256m}
+ * (свойство {@code test.argLine}). Если выгрузка начнет копить строки в памяти, тест упадет с OutOfMemoryError.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=CardExportBenchmark}
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "cards.backfill.initial-delay=3600000"})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CardExportBenchmark {
+
+    private static final int CARDS = 1_000_000;
+    private static final int LEGACY_CARDS = 1_000;
+
+    @Autowired
+    private CardExportService cardExportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    private long totalCards;
+
+    @BeforeAll
+    void generateCards() {
+
+        String userId = "(select id from users where username = 'user001')";
+        jdbcTemplate.update("insert into cards (card_number, last_four, expiry_date, user_id, balance, status) " +
+                "select 'export-' || g, lpad((g % 10000)::text, 4, '0'), current_date + 365, " + userId + ", g % 1000, 'ACTIVE' " +
+                "from generate_series(1, ?) g", CARDS);
+        // Карты без last_four: номер расшифровывается при выгрузке
+        jdbcTemplate.update("insert into cards (card_number, expiry_date, user_id, balance, status) " +
+                "select ?, current_date + 365, " + userId + ", 0, 'BLOCKED' from generate_series(1, ?) g",
+                encryptionUtil.encrypt("4000000000000002"), LEGACY_CARDS);
+        totalCards = jdbcTemplate.queryForObject("select count(*) from cards", Long.class);
+    }
+
+    @Test
+    void exportMillionCardsWithSmallHeap() throws IOException {
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("max heap: %d MB%n", runtime.maxMemory() / (1024 * 1024));
+
+        for (CardExportFormat format : CardExportFormat.values()) {
+            LineCountingOutputStream out = new LineCountingOutputStream(Long.MAX_VALUE);
+            long start = System.nanoTime();
+            long rows = cardExportService.exportCards(format, out);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            assertEquals(totalCards, rows);
+            assertEquals(format == CardExportFormat.CSV ? totalCards + 1 : totalCards, out.lines);
+            System.out.printf("%-7s %d строк, %d MB за %.2f с, %.0f строк/с, куча после выгрузки: %d MB%n",
+                    format, rows, out.bytes / (1024 * 1024), seconds, rows / seconds,
+                    (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        }
+    }
+
+    @Test
+    void clientDisconnect_ShouldStopExportAndReleaseConnection() {
+
+        LineCountingOutputStream out = new LineCountingOutputStream(1024 * 1024);
+
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> cardExportService.exportCards(CardExportFormat.NDJSON, out));
+        System.out.printf("Выгрузка прервана через %.0f мс после %d строк%n", (System.nanoTime() - start) / 1_000_000.0, out.lines);
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from pg_stat_activity where state = 'idle in transaction' and pid <> pg_backend_pid()", Long.class));
+    }
+
+    /**
+     * Считает строки и байты, ничего не храня. После {@code limit} байт ведет себя как оборванное соединение.
+     */
+    private static final class LineCountingOutputStream extends OutputStream {
+
+        private final long limit;
+        private long lines;
+        private long bytes;
+
+        private LineCountingOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (bytes + len > limit) {
+                throw new IOException("Broken pipe");
+            }
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
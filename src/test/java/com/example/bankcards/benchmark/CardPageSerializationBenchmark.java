@@ -0,0 +1,119 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Размер ответа и время сериализации страницы из 1 000 карт: прежний ответ (PageImpl и разбор свойств CardDto)
+ * против компактного PagedModel с потоковой записью полей, со всеми полями и с {@code fields=id,balance}.
+ * Без БД: замеряется только JSON.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=CardPageSerializationBenchmark}
+ */
+@Tag("benchmark")
+public class CardPageSerializationBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    @Test
+    void serializeThousandCardPage() throws Exception {
+
+        // Даты строками, как в ObjectMapper приложения
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        // Прежняя сериализация CardDto: свойства бина, без записи по списку полей
+        ObjectMapper legacyMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .mixIn(CardDto.class, LegacyCardDto.class)
+                .build();
+
+        Set<CardField> sparse = EnumSet.of(CardField.ID, CardField.BALANCE);
+
+        System.out.printf("%-34s %10s %12s%n", "response", "bytes", "avg µs");
+        long legacy = report("PageImpl, все поля (прежний)", legacyMapper, page(CardField.ALL));
+        long compact = report("PagedModel, все поля", objectMapper, new PagedModel<>(page(CardField.ALL)));
+        long compactSparse = report("PagedModel, fields=id,balance", objectMapper, new PagedModel<>(page(sparse)));
+
+        assertTrue(compact < legacy);
+        assertTrue(compactSparse < compact);
+    }
+
+    private static long report(String response, ObjectMapper objectMapper, Object body) throws Exception {
+        ByteCountingOutputStream out = new ByteCountingOutputStream();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            objectMapper.writeValue(out, body);
+        }
+        out.bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            objectMapper.writeValue(out, body);
+        }
+        double avgMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        long bytes = out.bytes / ITERATIONS;
+        System.out.printf("%-34s %10d %12.1f%n", response, bytes, avgMicros);
+        return bytes;
+    }
+
+    private static Page<CardDto> page(Set<CardField> fields) {
+        List<CardDto> cards = new ArrayList<>(CARDS);
+        for (int i = 1; i <= CARDS; i++) {
+            CardDto card = new CardDto();
+            card.setFields(fields);
+            card.setId((long) i);
+            if (fields.contains(CardField.MASKED_CARD_NUMBER)) {
+                card.setMaskedCardNumber("************" + String.format("%04d", i % 10_000));
+            }
+            if (fields.contains(CardField.EXPIRY_DATE)) {
+                card.setExpiryDate(LocalDate.of(2029, 1, 1).plusDays(i % 365));
+            }
+            if (fields.contains(CardField.STATUS)) {
+                card.setStatus("ACTIVE");
+            }
+            card.setBalance(BigDecimal.valueOf(i * 137L, 2));
+            cards.add(card);
+        }
+        return new PageImpl<>(cards, PageRequest.of(3, CARDS), 50_000);
+    }
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    private abstract static class LegacyCardDto {
+    }
+
+    private static final class ByteCountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
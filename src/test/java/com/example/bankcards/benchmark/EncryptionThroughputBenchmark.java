@@ -0,0 +1,96 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/**
+ * Пропускная способность шифрования номеров карт (строк в секунду) на 1..N потоках.
+ * Для сравнения замеряется и прежняя реализация, создававшая Cipher на каждый вызов.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=EncryptionThroughputBenchmark}
+ */
+@Tag("benchmark")
+public class EncryptionThroughputBenchmark {
+
+    private static final String SECRET = "alb4A0V83mr6ccE2";
+    private static final int ROWS_PER_THREAD = 200_000;
+    private static final int WARMUP_ROWS = 50_000;
+
+    @Test
+    void encryptAndDecryptThroughput() throws Exception {
+
+        EncryptionUtil encryptionUtil = new EncryptionUtil(SECRET);
+        String encrypted = encryptionUtil.encrypt("1111222233334444");
+        String legacyEncrypted = legacyEncrypt("1111222233334444");
+
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-22s %8s %15s%n", "operation", "threads", "rows/sec");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            report("encrypt (pooled GCM)", threads, value -> encryptionUtil.encrypt("1111222233334444"), "");
+            report("decrypt (pooled GCM)", threads, encryptionUtil::decrypt, encrypted);
+            report("decrypt (pooled ECB)", threads, encryptionUtil::decrypt, legacyEncrypted);
+            report("encrypt (per-call)", threads, value -> legacyEncrypt("1111222233334444"), "");
+            report("decrypt (per-call)", threads, EncryptionThroughputBenchmark::legacyDecrypt, legacyEncrypted);
+        }
+    }
+
+    private void report(String operation, int threads, UnaryOperator<String> op, String input) throws Exception {
+        run(1, WARMUP_ROWS, op, input);
+        long elapsedNanos = run(threads, ROWS_PER_THREAD, op, input);
+        double rowsPerSecond = (double) threads * ROWS_PER_THREAD / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("%-22s %8d %15.0f%n", operation, threads, rowsPerSecond);
+    }
+
+    private long run(int threads, int rowsPerThread, UnaryOperator<String> op, String input) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < rowsPerThread; i++) {
+                        op.apply(input);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String legacyEncrypt(String data) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+            return Base64.getEncoder().encodeToString(cipher.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String legacyDecrypt(String data) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+            return new String(cipher.doFinal(Base64.getDecoder().decode(data)), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пропускная способность и задержка GET /api/cards при {@value #CONCURRENCY} одновременных клиентах:
+ * пул платформенных потоков Tomcat (200) против виртуальных потоков с очередью допуска к пулу соединений.
+ * Пул Hikari в обоих режимах одинаковый, {@value #POOL_SIZE} соединений. Ответы не 200 (в том числе 503
+ * от очереди допуска) считаются ошибками.
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=VirtualThreadLoadBenchmark}
+ */
+@Tag("benchmark")
+public class VirtualThreadLoadBenchmark {
+
+    private static final int CONCURRENCY = 2_000;
+    private static final int POOL_SIZE = 20;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.jpa.show-sql=false", "cards.backfill.initial-delay=3600000",
+            "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+            "spring.threads.virtual.enabled=false"})
+    @Import(TestcontainersConfiguration.class)
+    @Testcontainers(disabledWithoutDocker = true)
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void load() throws Exception {
+            report("platform threads", port);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.jpa.show-sql=false", "cards.backfill.initial-delay=3600000",
+            "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+            "spring.threads.virtual.enabled=true"})
+    @Import(TestcontainersConfiguration.class)
+    @Testcontainers(disabledWithoutDocker = true)
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void load() throws Exception {
+            report("virtual threads + admission", port);
+        }
+    }
+
+    private static void report(String mode, int port) throws Exception {
+        ExecutorService responseThreads = Executors.newFixedThreadPool(8);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(responseThreads)
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cards?size=20"))
+                    .header("Authorization", "Bearer " + login(client, port))
+                    .GET()
+                    .build();
+
+            drive(client, request, WARMUP);
+            Result result = drive(client, request, MEASUREMENT);
+
+            System.out.printf("%-30s %10s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "errors");
+            System.out.printf("%-30s %10.0f %10.1f %10.1f %10d%n", mode,
+                    result.timer.count() / (double) MEASUREMENT.toSeconds(),
+                    percentile(result.timer, 0.5), percentile(result.timer, 0.99), result.errors.sum());
+        } finally {
+            responseThreads.shutdown();
+        }
+    }
+
+    /**
+     * Держит {@value #CONCURRENCY} запросов в полете, пока не истечет {@code duration}, и дожидается последних ответов.
+     */
+    private static Result drive(HttpClient client, HttpRequest request, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long end = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                result.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (error != null || response.statusCode() != 200) {
+                    result.errors.increment();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+        return result;
+    }
+
+    private static String login(HttpClient client, int port) throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user001\",\"password\":\"userpass\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        matcher.find();
+        return matcher.group(1);
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static final class Result {
+
+        private final Timer timer = Timer.builder("load")
+                .publishPercentiles(0.5, 0.99)
+                .register(new SimpleMeterRegistry());
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdmissionControlledDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void closedConnection_ShouldFreeItsPermitOnce() throws Exception {
+
+        Connection physical = mock(Connection.class);
+        when(target.getConnection()).thenReturn(physical);
+        AdmissionControlledDataSource dataSource = dataSource(1, 10, Duration.ofMillis(50));
+
+        Connection connection = dataSource.getConnection();
+        assertSame(physical, ((ConnectionProxy) connection).getTargetConnection());
+        assertEquals(1.0, active());
+
+        connection.close();
+        connection.close();
+
+        verify(physical, times(2)).close();
+        assertEquals(0.0, active());
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void poolBusyLongerThanTimeout_ShouldRejectWithTransientException() throws Exception {
+
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        AdmissionControlledDataSource dataSource = dataSource(1, 10, Duration.ofMillis(50));
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        assertEquals(1.0, rejected("timeout"));
+        held.close();
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void fullQueue_ShouldRejectImmediately() throws Exception {
+
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        AdmissionControlledDataSource dataSource = dataSource(1, 1, Duration.ofSeconds(30));
+        Connection held = dataSource.getConnection();
+
+        Future<Connection> queued = executor.submit(() -> dataSource.getConnection());
+        awaitWaiting(1);
+
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1.0, rejected("queue-full"));
+
+        // Освобожденное разрешение достается ожидающему в очереди
+        held.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0.0, active());
+    }
+
+    @Test
+    void failedTargetConnection_ShouldReturnPermit() throws Exception {
+
+        when(target.getConnection()).thenThrow(new SQLException("connection refused"));
+        AdmissionControlledDataSource dataSource = dataSource(1, 10, Duration.ofMillis(50));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        assertEquals(0.0, rejected("timeout"));
+        assertEquals(0.0, active());
+    }
+
+    @Test
+    void waitersBeyondPoolSize_ShouldAllBeServedInTurn() throws Exception {
+
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        AdmissionControlledDataSource dataSource = dataSource(2, 100, Duration.ofSeconds(10));
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?>[] workers = new Future<?>[20];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = executor.submit(() -> {
+                start.await();
+                try (Connection connection = dataSource.getConnection()) {
+                    assertTrue(active() <= 2.0);
+                    Thread.sleep(5);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0.0, active());
+        assertEquals(20, meterRegistry.get("jdbc.admission.wait").timer().count());
+    }
+
+    private AdmissionControlledDataSource dataSource(int maxConcurrent, int maxWaiting, Duration acquireTimeout) {
+        return new AdmissionControlledDataSource(target, "primary", maxConcurrent, maxWaiting, acquireTimeout, meterRegistry);
+    }
+
+    private double active() {
+        return meterRegistry.get("jdbc.admission.active").gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("jdbc.admission.rejected").tag("reason", reason).counter().count();
+    }
+
+    private void awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("jdbc.admission.waiting").gauge().value() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, meterRegistry.get("jdbc.admission.waiting").gauge().value());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Какой {@code dataSource} получается с очередью допуска и без нее. Пулы Hikari создаются лениво,
+ * поэтому БД для этих проверок не нужна.
+ */
+public class JdbcAdmissionConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            // Как в SpringApplication: без этого @Value не приводится к Duration
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(JdbcAdmissionConfig.class, ReplicaDataSourceConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues("spring.datasource.url=jdbc:postgresql://localhost:5432/bank",
+                    "spring.datasource.hikari.maximum-pool-size=7");
+
+    @Test
+    void disabled_ShouldKeepAutoConfiguredPool() {
+
+        contextRunner.run(context -> {
+            assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class));
+            assertTrue(context.getBean(MeterRegistry.class).find("jdbc.admission.active").gauges().isEmpty());
+        });
+    }
+
+    @Test
+    void enabled_ShouldWrapPoolAndKeepItInjectableByType() {
+
+        contextRunner.withPropertyValues("cards.jdbc-admission.enabled=true").run(context -> {
+            HikariDataSource pool = context.getBean(HikariDataSource.class);
+            DataSource dataSource = context.getBean(DataSource.class);
+
+            assertInstanceOf(AdmissionControlledDataSource.class, dataSource);
+            assertSame(pool, dataSource.unwrap(HikariDataSource.class));
+            assertEquals(7, pool.getMaximumPoolSize());
+            assertNotNull(context.getBean(MeterRegistry.class).find("jdbc.admission.active").tag("pool", "primary").gauge());
+        });
+    }
+
+    @Test
+    void enabledWithReplica_ShouldWrapEachPoolSeparately() {
+
+        contextRunner.withPropertyValues("cards.jdbc-admission.enabled=true",
+                "cards.datasource.replica.jdbc-url=jdbc:postgresql://localhost:5433/bank").run(context -> {
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            assertEquals(2, context.getBeansOfType(HikariDataSource.class).size());
+            assertNotNull(meterRegistry.find("jdbc.admission.active").tag("pool", "primary").gauge());
+            assertNotNull(meterRegistry.find("jdbc.admission.active").tag("pool", "replica").gauge());
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ReplicaRoutingDataSource(mock(DataSource.class), mock(DataSource.class),
+                new ReplicaStickiness(Duration.ofMinutes(1), 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldGoToReplica() {
+
+        authenticate(1L);
+
+        assertEquals(ReplicaRoutingDataSource.Route.REPLICA, lookupInTransaction(true));
+    }
+
+    @Test
+    void readWriteTransactionOrNoTransaction_ShouldGoToPrimary() {
+
+        authenticate(1L);
+
+        assertEquals(ReplicaRoutingDataSource.Route.PRIMARY, lookupInTransaction(false));
+        assertEquals(ReplicaRoutingDataSource.Route.PRIMARY, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readAfterCommittedWrite_ShouldStayOnPrimaryForThatUserOnly() {
+
+        authenticate(1L);
+        lookupInTransaction(false);
+
+        assertEquals(ReplicaRoutingDataSource.Route.PRIMARY, lookupInTransaction(true));
+
+        authenticate(2L);
+        assertEquals(ReplicaRoutingDataSource.Route.REPLICA, lookupInTransaction(true));
+    }
+
+    @Test
+    void readAfterRolledBackWrite_ShouldGoToReplica() {
+
+        authenticate(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        dataSource.determineCurrentLookupKey();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(ReplicaRoutingDataSource.Route.REPLICA, lookupInTransaction(true));
+    }
+
+    /**
+     * Выбор источника так, как это происходит внутри транзакции; для пишущей транзакции имитируется коммит.
+     */
+    private ReplicaRoutingDataSource.Route lookupInTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            ReplicaRoutingDataSource.Route route = dataSource.determineCurrentLookupKey();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            return route;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private void authenticate(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId, "password",
+                Set.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Маршрутизация на двух независимых экземплярах PostgreSQL: основная БД из {@link TestcontainersConfiguration}
+ * и «реплика» с другим именем базы, по которому видно, куда ушел запрос.
+ */
+@SpringBootTest(properties = {"cards.datasource.sticky-window=PT1S", "cards.backfill.initial-delay=3600000"})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class ReplicaRoutingIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:15").withDatabaseName("replica_db");
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("cards.datasource.replica.jdbc-url", REPLICA::getJdbcUrl);
+        registry.add("cards.datasource.replica.username", REPLICA::getUsername);
+        registry.add("cards.datasource.replica.password", REPLICA::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldUseReplicaAndWritesPrimary() {
+
+        assertEquals("replica_db", currentDatabase(true));
+        assertEquals("test", currentDatabase(false));
+    }
+
+    @Test
+    void userReads_ShouldStickToPrimaryForWindowAfterWrite() throws InterruptedException {
+
+        UserPrincipal principal = new UserPrincipal(1L, "user001", "password", Set.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        currentDatabase(false);
+        assertEquals("test", currentDatabase(true));
+
+        Thread.sleep(1500);
+        assertEquals("replica_db", currentDatabase(true));
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select current_database()", String.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningMonitor monitor =
+            new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(20), 16, 2);
+
+    @Test
+    void everyPinning_ShouldBeTimedEvenBeyondReportedSites() {
+
+        monitor.pinned(Duration.ofMillis(30), List.of("org.postgresql.core.PGStream.receive(line 10)"));
+        monitor.pinned(Duration.ofMillis(50), List.of("org.postgresql.core.PGStream.receive(line 10)"));
+        monitor.pinned(Duration.ofMillis(40), List.of("com.example.A.a(line 1)"));
+        monitor.pinned(Duration.ofMillis(40), List.of("com.example.B.b(line 2)"));
+        monitor.pinned(Duration.ofMillis(40), List.of());
+
+        Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+        assertEquals(5, pinned.count());
+        assertEquals(200, pinned.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(50, pinned.max(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    /**
+     * Начиная с Java 24 synchronized больше не закрепляет виртуальный поток (JEP 491).
+     */
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_23)
+    void sleepInsideSynchronizedOnVirtualThread_ShouldBeRecorded() throws Exception {
+
+        monitor.start();
+        try {
+            Object lock = new Object();
+            try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                virtualThreads.submit(() -> {
+                    synchronized (lock) {
+                        Thread.sleep(100);
+                    }
+                    return null;
+                }).get(5, TimeUnit.SECONDS);
+            }
+
+            Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pinned.count() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(pinned.count() > 0);
+        } finally {
+            monitor.stop();
+        }
+    }
+}
@@ -1,35 +1,75 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.BulkImportRowResultDto;
+import com.example.bankcards.dto.BulkStatusChangeRequestDto;
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardLookupRequestDto;
+import com.example.bankcards.dto.CardSearchFilterDto;
 import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.dto.PendingBlockClaimDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardStatusTransition;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.TokenVersionRegistry;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardBlockQueueService;
+import com.example.bankcards.service.CardExportFormat;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardImportService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStatusBulkService;
+import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 
 @WebMvcTest(controllers = AdminController.class)
 public class AdminControllerTest {
 
+    private static final UserPrincipal ADMIN =
+            new UserPrincipal(5L, "admin", "password", Set.of(new SimpleGrantedAuthority("ROLE_ADMIN")), 0);
+
     @Autowired
     private MockMvc mockMvc;
     @Autowired
@@ -37,9 +77,21 @@ public class AdminControllerTest {
     @MockitoBean
     private CardService cardService;
     @MockitoBean
+    private CardExportService cardExportService;
+    @MockitoBean
+    private CardImportService cardImportService;
+    @MockitoBean
+    private CardStatusBulkService cardStatusBulkService;
+    @MockitoBean
+    private CardBlockQueueService cardBlockQueueService;
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
     private JwtTokenProvider tokenProvider;
     @MockitoBean
     private CustomUserDetailsService customUserDetailsService;
+    @MockitoBean
+    private TokenVersionRegistry tokenVersionRegistry;
 
     @Test
     @WithMockUser(roles = "ADMIN")
@@ -77,16 +129,291 @@ public class AdminControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importCards_FromJsonArray_ShouldReturnPerRowReport() throws Exception {
+
+        BulkImportResultDto report = new BulkImportResultDto(List.of(
+                BulkImportRowResultDto.created(1, 10L, "************4444"),
+                BulkImportRowResultDto.failed(2, "Не найден пользователь с id: 9")));
+        given(cardImportService.importCards(any())).willReturn(report);
+
+        mockMvc.perform(post("/api/admin/cards/bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"userId\":1,\"cardNumber\":\"1111222233334444\",\"expiryDate\":\"2030-01-01\"}," +
+                                "{\"userId\":9,\"cardNumber\":\"1111222233335555\",\"expiryDate\":\"2030-01-01\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rows[0].cardId").value(10))
+                .andExpect(jsonPath("$.rows[1].status").value("FAILED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importCards_FromCsv_ShouldPassBodyToCsvImport() throws Exception {
+
+        String csv = "userId,cardNumber,expiryDate\n1,1111222233334444,2030-01-01\n";
+        given(cardImportService.importCardsCsv(csv)).willReturn(new BulkImportResultDto(List.of()));
+
+        mockMvc.perform(post("/api/admin/cards/bulk")
+                        .with(csrf())
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void blockCards_ByIds_ShouldReturnChangedAndRejectedIds() throws Exception {
+
+        BulkStatusChangeResultDto result = new BulkStatusChangeResultDto(CardStatus.BLOCKED);
+        result.getChanged().add(1L);
+        result.getRejected().add(new BulkStatusChangeResultDto.Rejection(2L, "Карта уже заблокирована"));
+        ArgumentCaptor<BulkStatusChangeRequestDto> captor = ArgumentCaptor.forClass(BulkStatusChangeRequestDto.class);
+        given(cardStatusBulkService.changeStatus(eq(CardStatusTransition.BLOCK), captor.capture())).willReturn(result);
+
+        mockMvc.perform(patch("/api/admin/cards/bulk/block")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("BLOCKED"))
+                .andExpect(jsonPath("$.changed[0]").value(1))
+                .andExpect(jsonPath("$.rejected[0].id").value(2))
+                .andExpect(jsonPath("$.rejected[0].reason").value("Карта уже заблокирована"));
+
+        assertEquals(List.of(1L, 2L), captor.getValue().getIds());
+        assertNull(captor.getValue().getFilter());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void activateCards_ByFilter_ShouldPassFilterToService() throws Exception {
+
+        ArgumentCaptor<BulkStatusChangeRequestDto> captor = ArgumentCaptor.forClass(BulkStatusChangeRequestDto.class);
+        given(cardStatusBulkService.changeStatus(eq(CardStatusTransition.ACTIVATE), captor.capture()))
+                .willReturn(new BulkStatusChangeResultDto(CardStatus.ACTIVE));
+
+        mockMvc.perform(patch("/api/admin/cards/bulk/activate")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\":{\"ownerId\":7,\"expiresTo\":\"2030-01-31\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+
+        assertEquals(7L, captor.getValue().getFilter().getOwnerId());
+        assertEquals(LocalDate.of(2030, 1, 31), captor.getValue().getFilter().getExpiresTo());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void blockCards_WithIdsAndFilter_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(patch("/api/admin/cards/bulk/block")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"filter\":{\"status\":\"ACTIVE\"}}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardStatusBulkService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getPendingBlocks_ShouldReturnQueuePageWithNextCursor() throws Exception {
+
+        CardDto first = new CardDto();
+        first.setId(11L);
+        CardDto second = new CardDto();
+        second.setId(12L);
+        given(cardBlockQueueService.getPendingBlocks(10L, 2))
+                .willReturn(new SliceImpl<>(List.of(first, second), PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/api/admin/cards/pending-block").param("after", "10").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("12"));
+    }
+
+    @Test
+    void claimPendingBlocks_ShouldClaimForCurrentAdmin() throws Exception {
+
+        CardDto card = new CardDto();
+        card.setId(11L);
+        given(cardBlockQueueService.claimPendingBlocks(5L, 20))
+                .willReturn(new PendingBlockClaimDto(List.of(card), Instant.parse("2026-01-01T10:05:00Z")));
+
+        mockMvc.perform(post("/api/admin/cards/pending-block/claim").with(user(ADMIN)).with(csrf()).param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cards[0].id").value(11))
+                .andExpect(jsonPath("$.claimedUntil").exists());
+    }
+
+    @Test
+    void approveBlocks_ShouldApproveForCurrentAdmin() throws Exception {
+
+        BulkStatusChangeResultDto result = new BulkStatusChangeResultDto(CardStatus.BLOCKED);
+        result.getChanged().add(11L);
+        given(cardBlockQueueService.approveBlocks(5L, List.of(11L))).willReturn(result);
+
+        mockMvc.perform(post("/api/admin/cards/pending-block/approve").with(user(ADMIN)).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[11]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0]").value(11));
+    }
+
+    @Test
+    void approveBlocks_WithoutIds_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(post("/api/admin/cards/pending-block/approve").with(user(ADMIN)).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardBlockQueueService);
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getAllCards_ShouldReturnPagedCards() throws Exception {
 
         Page<CardDto> cardPage = new PageImpl<>(List.of(new CardDto()));
-        given(cardService.getAllCards(any())).willReturn(cardPage);
+        given(cardService.getAllCards(eq(CardField.ALL), any())).willReturn(cardPage);
 
         mockMvc.perform(get("/api/admin/cards"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content").isArray());
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.page.totalElements").value(1))
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_WithNonNumericAfter_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(get("/api/admin/cards").param("after", "abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_WithAfterCursorAndFields_ShouldPassFieldsAndKeepCursor() throws Exception {
+
+        Set<CardField> fields = EnumSet.of(CardField.STATUS);
+        CardDto card = new CardDto();
+        card.setFields(fields);
+        card.setId(101L);
+        card.setStatus("ACTIVE");
+        given(cardService.getAllCardsAfter(100L, fields, 1)).willReturn(new SliceImpl<>(List.of(card), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/admin/cards").param("after", "100").param("size", "1").param("fields", "status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].length()").value(1))
+                .andExpect(jsonPath("$.content[0].status").value("ACTIVE"))
+                .andExpect(jsonPath("$.nextCursor").value("101"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_WithAfterCursor_ShouldReturnSliceWithNextCursor() throws Exception {
+
+        CardDto first = new CardDto();
+        first.setId(101L);
+        CardDto second = new CardDto();
+        second.setId(102L);
+        given(cardService.getAllCardsAfter(100L, CardField.ALL, 2)).willReturn(new SliceImpl<>(List.of(first, second), PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/api/admin/cards").param("after", "100").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("102"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getAllCards_WithAfterCursorOnLastSlice_ShouldReturnNoNextCursor() throws Exception {
+
+        given(cardService.getAllCardsAfter(100L, CardField.ALL, 10)).willReturn(new SliceImpl<>(List.of(new CardDto()), PageRequest.of(0, 10), false));
+
+        mockMvc.perform(get("/api/admin/cards").param("after", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_ShouldBindFiltersFromQueryParameters() throws Exception {
+
+        ArgumentCaptor<CardSearchFilterDto> filterCaptor = ArgumentCaptor.forClass(CardSearchFilterDto.class);
+        given(cardService.searchCards(filterCaptor.capture(), eq(PageRequest.of(0, 10))))
+                .willReturn(new PageImpl<>(List.of(new CardDto())));
+
+        mockMvc.perform(get("/api/admin/cards/search")
+                        .param("status", "PENDING_BLOCK")
+                        .param("expiresFrom", "2026-01-01")
+                        .param("expiresTo", "2026-12-31")
+                        .param("ownerId", "7")
+                        .param("minBalance", "100.00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.page.totalElements").value(1))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+
+        CardSearchFilterDto filter = filterCaptor.getValue();
+        assertEquals(CardStatus.PENDING_BLOCK, filter.getStatus());
+        assertEquals(LocalDate.of(2026, 1, 1), filter.getExpiresFrom());
+        assertEquals(LocalDate.of(2026, 12, 31), filter.getExpiresTo());
+        assertEquals(7L, filter.getOwnerId());
+        assertEquals(new BigDecimal("100.00"), filter.getMinBalance());
+        assertNull(filter.getMaxBalance());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchCards_WhenStatusIsUnknown_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(get("/api/admin/cards/search").param("status", "LOST"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportCards_ShouldStreamCsvAsAttachment() throws Exception {
+
+        given(cardExportService.exportCards(eq(CardExportFormat.CSV), any())).willAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,ownerId,maskedCardNumber,expiryDate,balance,status\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/admin/cards/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards.csv\""))
+                .andExpect(content().string("id,ownerId,maskedCardNumber,expiryDate,balance,status\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportCards_WhenFormatIsUnknown_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(get("/api/admin/cards/export").param("format", "XML"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardExportService);
     }
 
     @Test
@@ -124,4 +451,37 @@ public class AdminControllerTest {
                         .with(csrf()))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void revokeUserTokens_ShouldReturnNoContent() throws Exception {
+
+        Long userId = 1L;
+        doNothing().when(userService).revokeTokens(userId);
+
+        mockMvc.perform(post("/api/admin/users/{id}/revoke-tokens", userId)
+                        .with(csrf()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void findCardByNumber_ShouldReturnCard() throws Exception {
+
+        CardLookupRequestDto requestDto = new CardLookupRequestDto();
+        requestDto.setCardNumber("1111222233334444");
+
+        CardDto responseDto = new CardDto();
+        responseDto.setId(7L);
+        responseDto.setMaskedCardNumber("************4444");
+
+        given(cardService.findCardByNumber("1111222233334444")).willReturn(responseDto);
+
+        mockMvc.perform(post("/api/admin/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7));
+    }
 }
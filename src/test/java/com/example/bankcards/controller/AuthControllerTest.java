@@ -6,6 +6,7 @@ import com.example.bankcards.dto.RegisterDto;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtAuthenticationFilter;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.TokenVersionRegistry;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -41,6 +42,8 @@ public class AuthControllerTest {
     private JwtTokenProvider jwtTokenProvider;
     @MockitoBean
     private CustomUserDetailsService customUserDetailsService;
+    @MockitoBean
+    private TokenVersionRegistry tokenVersionRegistry;
 
     @Test
     void registerUser_WithValidData_ShouldReturnCreated() throws Exception {
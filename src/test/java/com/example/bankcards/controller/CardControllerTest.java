@@ -2,9 +2,16 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.BalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.TokenVersionRegistry;
+import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.service.CardService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,25 +20,36 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = CardController.class)
 public class CardControllerTest {
 
+    private static final Long USER_ID = 1L;
+    private static final UserPrincipal PRINCIPAL =
+            new UserPrincipal(USER_ID, "testuser", "password", Set.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+
     @Autowired
     private MockMvc mockMvc;
     @Autowired
@@ -42,28 +60,82 @@ public class CardControllerTest {
     private JwtTokenProvider jwtTokenProvider;
     @MockitoBean
     private CustomUserDetailsService customUserDetailsService;
+    @MockitoBean
+    private TokenVersionRegistry tokenVersionRegistry;
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     void getUserCards_ShouldReturnPagedCards() throws Exception {
 
         CardDto cardDto = new CardDto();
         cardDto.setId(1L);
         Page<CardDto> cardPage = new PageImpl<>(List.of(cardDto));
 
-        given(cardService.getCardsByUsername(eq("testuser"), any()))
-                .willReturn(cardPage);
-
+        given(cardService.getUserCardsETag(eq(USER_ID), eq(CardField.ALL), any())).willReturn("7-3-0-10");
+        given(cardService.getUserCards(eq(USER_ID), eq(CardField.ALL), any())).willReturn(cardPage);
 
-        mockMvc.perform(get("/api/cards")
+        mockMvc.perform(get("/api/cards").with(user(PRINCIPAL))
                         .param("page", "0")
                         .param("size", "10"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content[0].id").value(1));
+                .andExpect(header().string("ETag", "\"7-3-0-10\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(1))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    @Test
+    void getUserCards_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+
+        Set<CardField> fields = EnumSet.of(CardField.ID, CardField.BALANCE);
+        CardDto cardDto = new CardDto();
+        cardDto.setFields(fields);
+        cardDto.setId(1L);
+        cardDto.setBalance(new BigDecimal("10.00"));
+
+        given(cardService.getUserCards(eq(USER_ID), eq(fields), any())).willReturn(new PageImpl<>(List.of(cardDto)));
+
+        mockMvc.perform(get("/api/cards").with(user(PRINCIPAL)).param("fields", "balance, id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].balance").value(10.00));
+    }
+
+    @Test
+    void getUserCards_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(get("/api/cards").with(user(PRINCIPAL)).param("fields", "id,cardNumber"))
+                .andExpect(status().isBadRequest());
+
+        verify(cardService, never()).getUserCards(any(), any(), any());
+    }
+
+    @Test
+    void getUserCards_WhenETagMatches_ShouldReturnNotModifiedWithoutLoadingCards() throws Exception {
+
+        given(cardService.getUserCardsETag(eq(USER_ID), eq(CardField.ALL), any())).willReturn("7-3-0-10");
+
+        mockMvc.perform(get("/api/cards").with(user(PRINCIPAL)).header("If-None-Match", "\"7-3-0-10\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7-3-0-10\""))
+                .andExpect(content().string(""));
+
+        verify(cardService, never()).getUserCards(any(), any(), any());
+    }
+
+    @Test
+    void getUserCards_WhenETagIsStale_ShouldReturnCurrentPageWithCurrentETag() throws Exception {
+
+        given(cardService.getUserCardsETag(eq(USER_ID), eq(CardField.ALL), any())).willReturn("7-4-0-10");
+        given(cardService.getUserCards(eq(USER_ID), eq(CardField.ALL), any())).willReturn(new PageImpl<>(List.of(new CardDto())));
+
+        mockMvc.perform(get("/api/cards").with(user(PRINCIPAL)).header("If-None-Match", "\"7-3-0-10\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", "\"7-4-0-10\""));
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     void requestBlock_WhenUserIsOwner_ShouldReturnOk() throws Exception {
 
         Long cardId = 1L;
@@ -71,17 +143,16 @@ public class CardControllerTest {
         responseDto.setId(cardId);
         responseDto.setStatus("PENDING_BLOCK");
 
-        given(cardService.requestCardBlock(eq(cardId), eq("testuser"))).willReturn(responseDto);
+        given(cardService.requestCardBlock(eq(cardId), eq(USER_ID))).willReturn(responseDto);
 
 
-        mockMvc.perform(patch("/api/cards/{id}/request-block", cardId)
+        mockMvc.perform(patch("/api/cards/{id}/request-block", cardId).with(user(PRINCIPAL))
                         .with(csrf()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("PENDING_BLOCK"));
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     void transferMoney_WithValidRequest_ShouldReturnNoContent() throws Exception {
 
         TransferRequestDto requestDto = new TransferRequestDto();
@@ -89,27 +160,101 @@ public class CardControllerTest {
         requestDto.setToCardId(2L);
         requestDto.setAmount(new BigDecimal("100"));
 
-        doNothing().when(cardService).transferMoney(any(TransferRequestDto.class), eq("testuser"));
+        given(cardService.transferMoney(any(TransferRequestDto.class), eq(USER_ID), isNull())).willReturn(transferDto(5L, false));
 
-        mockMvc.perform(post("/api/cards/transfer")
+        mockMvc.perform(post("/api/cards/transfer").with(user(PRINCIPAL))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(requestDto))
                         .with(csrf()))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Transfer-Id", "5"))
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+    }
+
+    @Test
+    void transferMoney_WhenIdempotencyKeyWasUsed_ShouldReturnStoredTransfer() throws Exception {
+
+        TransferRequestDto requestDto = new TransferRequestDto();
+        requestDto.setFromCardId(1L);
+        requestDto.setToCardId(2L);
+        requestDto.setAmount(new BigDecimal("100"));
+
+        given(cardService.transferMoney(any(TransferRequestDto.class), eq(USER_ID), eq("key-1"))).willReturn(transferDto(5L, true));
+
+        mockMvc.perform(post("/api/cards/transfer").with(user(PRINCIPAL))
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto))
+                        .with(csrf()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Transfer-Id", "5"))
+                .andExpect(header().string("Idempotent-Replayed", "true"));
     }
 
     @Test
-    @WithMockUser(username = "testuser", roles = "USER")
     void getBalance_WhenCardExists_ShouldReturnBalance() throws Exception {
 
         Long cardId = 1L;
         BalanceDto balanceDto = new BalanceDto();
         balanceDto.setBalance(new BigDecimal("100.50"));
 
-        given(cardService.getCardBalance(eq(cardId), eq("testuser"))).willReturn(balanceDto);
+        balanceDto.setVersion("b2-7");
+
+        given(cardService.getCardBalance(eq(cardId), eq(USER_ID))).willReturn(balanceDto);
+
+        mockMvc.perform(get("/api/cards/{id}/balance", cardId).with(user(PRINCIPAL)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"b2-7\""))
+                .andExpect(jsonPath("$.balance").value(100.50))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getBalance_WhenETagMatches_ShouldReturnNotModified() throws Exception {
+
+        BalanceDto balanceDto = new BalanceDto();
+        balanceDto.setBalance(new BigDecimal("100.50"));
+        balanceDto.setVersion("b2-7");
+
+        given(cardService.getCardBalance(1L, USER_ID)).willReturn(balanceDto);
+
+        mockMvc.perform(get("/api/cards/{id}/balance", 1L).with(user(PRINCIPAL)).header("If-None-Match", "\"b2-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getCardTransfers_ShouldReturnCursorPage() throws Exception {
+
+        CardTransferDto entry = new CardTransferDto();
+        entry.setTransferId(7L);
+        entry.setCounterpartyCardId(2L);
+        entry.setAmount(new BigDecimal("-100.00"));
 
-        mockMvc.perform(get("/api/cards/{id}/balance", cardId))
+        given(cardService.getCardTransfers(1L, USER_ID, "abc", 20))
+                .willReturn(new CursorPageDto<>(List.of(entry), "next"));
+
+        mockMvc.perform(get("/api/cards/{id}/transfers", 1L).with(user(PRINCIPAL)).param("cursor", "abc"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.balance").value(100.50));
+                .andExpect(jsonPath("$.content[0].transferId").value(7))
+                .andExpect(jsonPath("$.content[0].amount").value(-100.00))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getCardTransfers_WhenCursorIsInvalid_ShouldReturnBadRequest() throws Exception {
+
+        given(cardService.getCardTransfers(1L, USER_ID, "broken", 20))
+                .willThrow(new InvalidCursorException("Некорректный курсор пагинации"));
+
+        mockMvc.perform(get("/api/cards/{id}/transfers", 1L).with(user(PRINCIPAL)).param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private TransferDto transferDto(Long id, boolean replayed) {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setId(id);
+        transferDto.setReplayed(replayed);
+        return transferDto;
     }
 }
@@ -0,0 +1,159 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Точное число SQL-запросов на каждый эндпоинт чтения карт.
+ * Считаются подготовленные JDBC-выражения по статистике Hibernate.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class CardEndpointsStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("stmt" + System.nanoTime() % 100_000_000, "password", "Test", "User", Set.of(Role.USER)));
+        card = createCard(owner);
+        createCard(owner);
+    }
+
+    @Test
+    void getUserCards_ShouldIssueVersionReadAndSelect() throws Exception {
+        assertStatements(2, get("/api/cards").with(user(principal())));
+    }
+
+    @Test
+    void getBalance_ShouldIssueOneStatement() throws Exception {
+        assertStatements(1, get("/api/cards/{id}/balance", card.getId()).with(user(principal())));
+    }
+
+    @Test
+    void getBalanceRepeated_ShouldBeServedFromCache() throws Exception {
+        mockMvc.perform(get("/api/cards/{id}/balance", card.getId()).with(user(principal()))).andExpect(status().isOk());
+
+        assertStatements(0, get("/api/cards/{id}/balance", card.getId()).with(user(principal())));
+    }
+
+    @Test
+    void getUserCardsWithFields_ShouldIssueVersionReadAndSelect() throws Exception {
+        assertStatements(2, get("/api/cards").param("fields", "id,balance").with(user(principal())));
+    }
+
+    @Test
+    void getUserCardsNotModified_ShouldIssueOnlyVersionRead() throws Exception {
+        String eTag = mockMvc.perform(get("/api/cards").with(user(principal())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/cards").header("If-None-Match", eTag).with(user(principal())))
+                .andExpect(status().isNotModified());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getUserCardsAfterCardsChanged_ShouldReturnNewETag() throws Exception {
+        String eTag = mockMvc.perform(get("/api/cards").with(user(principal())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(patch("/api/cards/{id}/request-block", card.getId()).with(csrf()).with(user(principal())))
+                .andExpect(status().isOk());
+
+        String newETag = mockMvc.perform(get("/api/cards").header("If-None-Match", eTag).with(user(principal())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(eTag, newETag);
+    }
+
+    /**
+     * Увеличение версии карт идет через JDBC и в статистику Hibernate не попадает.
+     */
+    @Test
+    void requestBlock_ShouldIssueSelectAndUpdate() throws Exception {
+        assertStatements(2, patch("/api/cards/{id}/request-block", card.getId()).with(csrf()).with(user(principal())));
+    }
+
+    @Test
+    void getAllCardsPage_ShouldIssueSelectAndCount() throws Exception {
+        assertStatements(2, get("/api/admin/cards").param("size", "1").with(user("admin").roles("ADMIN")));
+    }
+
+    @Test
+    void getAllCardsAfterCursor_ShouldIssueOneStatement() throws Exception {
+        assertStatements(1, get("/api/admin/cards").param("after", "0").param("size", "1").with(user("admin").roles("ADMIN")));
+    }
+
+    private UserPrincipal principal() {
+        return new UserPrincipal(owner.getId(), owner.getUsername(), "password", Set.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+    }
+
+    private void assertStatements(long expected, RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private Card createCard(User cardOwner) {
+        Card newCard = new Card();
+        newCard.setOwner(cardOwner);
+        newCard.setCardNumber("stmt-" + System.nanoTime());
+        newCard.setLastFour("4444");
+        newCard.setExpiryDate(LocalDate.now().plusYears(3));
+        newCard.setBalance(BigDecimal.TEN);
+        newCard.setStatus(CardStatus.ACTIVE);
+        return cardRepository.save(newCard);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardExpirySweepJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private CardExpirySweepJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new CardExpirySweepJob(cardRepository, cardVersionRegistry, transactionManager, meterRegistry, 3, Duration.ZERO);
+    }
+
+    @Test
+    void sweep_ShouldExpireCardsChunkByChunkUntilNoneLeft() {
+
+        when(cardRepository.findExpiredIdsForUpdate(TODAY, PageRequest.of(0, 3)))
+                .thenReturn(List.of(1L, 2L, 3L))
+                .thenReturn(List.of(4L))
+                .thenReturn(List.of());
+        when(cardRepository.markExpired(any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        assertEquals(4, job.sweep(TODAY));
+
+        verify(cardRepository).markExpired(List.of(1L, 2L, 3L));
+        verify(cardRepository).markExpired(List.of(4L));
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(1L, 2L, 3L));
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(4L));
+        // Каждая порция — своя транзакция, плюс последняя пустая выборка
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(4, meterRegistry.counter("cards.expiry.expired").count());
+        assertEquals(2, meterRegistry.counter("cards.expiry.chunks").count());
+        assertEquals(4, meterRegistry.get("cards.expiry.run.expired").gauge().value());
+    }
+
+    @Test
+    void sweep_WhenNothingExpired_ShouldNotUpdate() {
+
+        when(cardRepository.findExpiredIdsForUpdate(eq(TODAY), any())).thenReturn(List.of());
+
+        assertEquals(0, job.sweep(TODAY));
+
+        verify(cardRepository, never()).markExpired(any());
+        assertEquals(0, meterRegistry.counter("cards.expiry.chunks").count());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardPurgeJobTest {
+
+    private static final Instant DELETED_BEFORE = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void purge_ShouldDeleteTombstonedCardsBatchByBatch() {
+
+        CardPurgeJob job = new CardPurgeJob(cardRepository, transactionManager, meterRegistry,
+                2, Duration.ofDays(7), Duration.ZERO, Duration.ofHours(1));
+        when(cardRepository.findPurgeableIds(DELETED_BEFORE, 2))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L))
+                .thenReturn(List.of());
+        when(cardRepository.purge(any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        assertEquals(3, job.purge(DELETED_BEFORE));
+
+        verify(cardRepository).purge(List.of(1L, 2L));
+        verify(cardRepository).purge(List.of(3L));
+        assertEquals(3, meterRegistry.counter("cards.purge.deleted").count());
+    }
+
+    @Test
+    void purge_WhenBatchDeletesNothing_ShouldContinueWithNextBatch() {
+
+        CardPurgeJob job = new CardPurgeJob(cardRepository, transactionManager, meterRegistry,
+                2, Duration.ofDays(7), Duration.ZERO, Duration.ofHours(1));
+        when(cardRepository.findPurgeableIds(DELETED_BEFORE, 2))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L, 4L))
+                .thenReturn(List.of());
+        // Первую пачку успели восстановить между выборкой и удалением
+        when(cardRepository.purge(List.of(1L, 2L))).thenReturn(0);
+        when(cardRepository.purge(List.of(3L, 4L))).thenReturn(2);
+
+        assertEquals(2, job.purge(DELETED_BEFORE));
+
+        verify(cardRepository, times(3)).findPurgeableIds(DELETED_BEFORE, 2);
+        assertEquals(2, meterRegistry.counter("cards.purge.deleted").count());
+    }
+
+    @Test
+    void purge_WhenWindowIsOver_ShouldStopWithoutTouchingRows() {
+
+        CardPurgeJob job = new CardPurgeJob(cardRepository, transactionManager, meterRegistry,
+                2, Duration.ofDays(7), Duration.ZERO, Duration.ZERO);
+
+        assertEquals(0, job.purge(DELETED_BEFORE));
+
+        verifyNoInteractions(cardRepository);
+    }
+}
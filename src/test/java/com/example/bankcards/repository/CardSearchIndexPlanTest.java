@@ -0,0 +1,83 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Планы запросов поиска карт администратором: каждая комбинация фильтров должна обслуживаться индексом.
+ * На маленькой тестовой таблице планировщик и так выбрал бы seq scan, поэтому он выключен
+ * в транзакции: проверяется, что для условия вообще есть пригодный индекс.
+ * Условия повторяют SQL, который строится из {@link CardSpecifications}.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class CardSearchIndexPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "status                | c.status = 'ACTIVE'",
+            "pending block         | c.status = 'PENDING_BLOCK'",
+            "status + expiry range | c.status = 'ACTIVE' and c.expiry_date >= DATE '2026-01-01' and c.expiry_date <= DATE '2026-12-31'",
+            "expiry range          | c.expiry_date >= DATE '2026-01-01' and c.expiry_date <= DATE '2026-12-31'",
+            "owner                 | c.user_id = 1",
+            "owner + status        | c.user_id = 1 and c.status = 'BLOCKED'",
+            "balance range         | c.balance >= 100 and c.balance <= 500",
+            "owner + balance range | c.user_id = 1 and c.balance >= 100"
+    })
+    void search_ShouldUseIndex(String combination, String predicate) {
+
+        String plan = explain("select c.id, c.last_four, c.expiry_date, c.balance, c.status from cards c where "
+                + predicate + " order by c.id offset 0 rows fetch first 10 rows only");
+        String countPlan = explain("select count(c.id) from cards c where " + predicate);
+
+        // Страница с сортировкой по id может идти и по первичному ключу, главное - не полным сканированием
+        assertFalse(plan.contains("Seq Scan on cards"), plan);
+        assertFalse(countPlan.contains("Seq Scan on cards"), countPlan);
+        assertTrue(countPlan.contains("ix_cards_"), countPlan);
+    }
+
+    @Test
+    void expirySweep_ShouldUsePartialIndex() {
+
+        // Тот же SQL, что строится из CardRepository.findExpiredIdsForUpdate
+        String plan = explain("select c.id from cards c where c.expiry_date < DATE '2026-01-01' " +
+                "and c.status <> 'EXPIRED' fetch first 1000 rows only for no key update skip locked");
+
+        assertTrue(plan.contains("ix_cards_expiry_sweep"), plan);
+    }
+
+    @Test
+    void pendingBlockClaim_ShouldUsePartialIndex() {
+
+        // Тот же SQL, что строится из CardRepository.findClaimablePendingBlockIds
+        String plan = explain("select c.id from cards c where c.status = 'PENDING_BLOCK' and " +
+                "(c.block_claimed_until is null or c.block_claimed_until < now()) " +
+                "order by c.id fetch first 50 rows only for no key update skip locked");
+
+        assertTrue(plan.contains("ix_cards_pending_block"), plan);
+    }
+
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        });
+    }
+}
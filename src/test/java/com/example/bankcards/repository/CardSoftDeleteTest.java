@@ -0,0 +1,136 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.job.CardPurgeJob;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Мягко удаленные карты на настоящей БД: ограничение {@code deleted_at is null} на сущности должно скрывать их
+ * от чтений и от массовых UPDATE, а физически удаляться должны только карты старше срока хранения.
+ */
+@SpringBootTest(properties = {"cards.backfill.initial-delay=3600000", "cards.purge.retention=P7D"})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class CardSoftDeleteTest {
+
+    private static final BigDecimal BALANCE = new BigDecimal("100.00");
+
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardPurgeJob cardPurgeJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private Card active;
+    private Card deleted;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("sd" + System.nanoTime() % 100_000_000, "password", "Test", "User", Set.of(Role.USER)));
+        active = createCard(owner, LocalDate.now().plusYears(3));
+        // Срок действия уже истек: без ограничения на сущности карту изменил бы и markExpired
+        deleted = createCard(owner, LocalDate.now().minusDays(1));
+        cardService.deleteCardByAdmin(deleted.getId());
+    }
+
+    @Test
+    void reads_ShouldNotSeeDeletedCard() {
+
+        assertTrue(cardRepository.findById(deleted.getId()).isEmpty());
+        assertTrue(cardRepository.findBalanceById(deleted.getId()).isEmpty());
+
+        List<Long> listed = cardService.getUserCards(owner.getId(), CardField.ALL, PageRequest.of(0, 10))
+                .map(CardDto::getId).getContent();
+        assertEquals(List.of(active.getId()), listed);
+
+        CardSearchFilterDto filter = new CardSearchFilterDto();
+        filter.setOwnerId(owner.getId());
+        List<Long> found = cardService.searchCards(filter, PageRequest.of(0, 10)).map(CardDto::getId).getContent();
+        assertEquals(List.of(active.getId()), found);
+    }
+
+    @Test
+    void bulkUpdates_ShouldNotChangeDeletedCard() {
+
+        Long id = deleted.getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, cardRepository.debitIfAllowed(id, BigDecimal.ONE, owner.getId(), CardStatus.ACTIVE));
+            assertEquals(0, cardRepository.creditIfAllowed(id, BigDecimal.ONE, owner.getId(), CardStatus.ACTIVE));
+            assertEquals(0, cardRepository.updateStatus(List.of(id), Set.of(CardStatus.ACTIVE), CardStatus.BLOCKED));
+            assertEquals(0, cardRepository.markExpired(List.of(id)));
+        });
+
+        assertEquals(0, BALANCE.compareTo(jdbcTemplate.queryForObject("select balance from cards where id = ?", BigDecimal.class, id)));
+        assertEquals(CardStatus.ACTIVE.name(), jdbcTemplate.queryForObject("select status from cards where id = ?", String.class, id));
+    }
+
+    @Test
+    void purge_ShouldRemoveOnlyCardsDeletedBeforeRetention() {
+
+        Card old = createCard(owner, LocalDate.now().plusYears(3));
+        cardService.deleteCardByAdmin(old.getId());
+        jdbcTemplate.update("update cards set deleted_at = ? where id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(8))), old.getId());
+
+        List<Long> purgeable = transactionTemplate.execute(status ->
+                cardRepository.findPurgeableIds(Instant.now().minus(Duration.ofDays(7)), 10_000));
+        assertTrue(purgeable.contains(old.getId()));
+        assertFalse(purgeable.contains(deleted.getId()));
+        assertFalse(purgeable.contains(active.getId()));
+
+        cardPurgeJob.run();
+
+        assertFalse(exists(old.getId()));
+        assertTrue(exists(deleted.getId()));
+        assertTrue(exists(active.getId()));
+    }
+
+    private boolean exists(Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from cards where id = ?", Integer.class, id) == 1;
+    }
+
+    private Card createCard(User cardOwner, LocalDate expiryDate) {
+        Card card = new Card();
+        card.setOwner(cardOwner);
+        card.setCardNumber("sd-" + System.nanoTime());
+        card.setLastFour("4444");
+        card.setExpiryDate(expiryDate);
+        card.setBalance(BALANCE);
+        card.setStatus(CardStatus.ACTIVE);
+        return cardRepository.save(card);
+    }
+}
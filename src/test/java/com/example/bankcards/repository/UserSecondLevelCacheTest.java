@@ -0,0 +1,125 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.config.UserCacheConfig;
+import com.example.bankcards.dto.RegisterDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш второго уровня для {@link User}: повторные чтения не ходят в БД, а любая запись через Hibernate
+ * делает следующее чтение актуальным. Запросы считаются по статистике Hibernate.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "cards.backfill.initial-delay=3600000"})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class UserSecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        username = "cache" + System.nanoTime() % 100_000_000;
+    }
+
+    @Test
+    void findByUsername_WhenRepeated_ShouldBeServedFromCache() {
+
+        userRepository.save(new User(username, "password", "Test", "User", Set.of(Role.USER, Role.ADMIN)));
+
+        // Пользователь и его роли (EAGER-коллекция читается отдельным запросом)
+        User first = countStatements(2, () -> userRepository.findByUsername(username).orElseThrow());
+        User second = countStatements(0, () -> userRepository.findByUsername(username).orElseThrow());
+        countStatements(0, () -> userDetailsService.loadUserByUsername(username));
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(Set.of(Role.USER, Role.ADMIN), second.getRoles());
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", UserCacheConfig.USERS_BY_USERNAME_REGION)
+                .tag("result", "hit").functionCounter().count() >= 2);
+    }
+
+    @Test
+    void findByUsername_AfterEntityUpdate_ShouldReturnNewState() {
+
+        Long id = userRepository.save(new User(username, "password", "Test", "User", Set.of(Role.USER))).getId();
+        userRepository.findByUsername(username);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(id).orElseThrow();
+            user.setFirstName("Changed");
+            user.getRoles().add(Role.ADMIN);
+        });
+
+        User updated = userRepository.findByUsername(username).orElseThrow();
+        assertEquals("Changed", updated.getFirstName());
+        assertEquals(Set.of(Role.USER, Role.ADMIN), updated.getRoles());
+        countStatements(0, () -> userRepository.findByUsername(username));
+    }
+
+    @Test
+    void findByUsername_AfterBulkTokenRevocation_ShouldReturnNewTokenVersion() {
+
+        Long id = userRepository.save(new User(username, "password", "Test", "User", Set.of(Role.USER))).getId();
+        assertEquals(0, userRepository.findByUsername(username).orElseThrow().getTokenVersion());
+
+        userService.revokeTokens(id);
+
+        assertEquals(1, countStatements(1, () -> userRepository.findByUsername(username).orElseThrow()).getTokenVersion());
+    }
+
+    @Test
+    void findByUsername_WhenNotFoundAndThenRegistered_ShouldFindNewUser() {
+
+        assertTrue(userRepository.findByUsername(username).isEmpty());
+        countStatements(0, () -> userRepository.findByUsername(username));
+
+        RegisterDto registerDto = new RegisterDto();
+        registerDto.setUsername(username);
+        registerDto.setPassword("password");
+        registerDto.setFirstName("Test");
+        registerDto.setLastName("User");
+        userService.registerUser(registerDto);
+
+        assertTrue(userRepository.findByUsername(username).isPresent());
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> action) {
+        statistics.clear();
+        T result = action.get();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "token";
+
+    @Mock
+    private JwtTokenProvider tokenProvider;
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WhenClaimsAuthEnabled_ShouldAuthenticateWithoutUserLookup() throws Exception {
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, customUserDetailsService, tokenVersionRegistry, true);
+
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(claims(2)));
+        when(tokenVersionRegistry.isCurrent(1L, 2)).thenReturn(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("testuser", authentication.getName());
+        assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        assertEquals(1L, ((UserPrincipal) authentication.getPrincipal()).getId());
+
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void doFilter_WhenTokenVersionIsRevoked_ShouldNotAuthenticate() throws Exception {
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, customUserDetailsService, tokenVersionRegistry, true);
+
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(claims(1)));
+        when(tokenVersionRegistry.isCurrent(1L, 1)).thenReturn(false);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void doFilter_WhenClaimsAuthDisabled_ShouldLoadUserFromDatabase() throws Exception {
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, customUserDetailsService, tokenVersionRegistry, false);
+
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(claims(2)));
+        when(customUserDetailsService.loadUserByUsername("testuser"))
+                .thenReturn(new UserPrincipal(1L, "testuser", "password", Set.of(new SimpleGrantedAuthority("ROLE_USER")), 2));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(customUserDetailsService).loadUserByUsername(anyString());
+        verifyNoInteractions(tokenVersionRegistry);
+    }
+
+    private Claims claims(int tokenVersion) {
+        Claims claims = Jwts.claims().setSubject("testuser");
+        claims.put(JwtTokenProvider.ROLES_CLAIM, "ROLE_USER");
+        claims.put(JwtTokenProvider.USER_ID_CLAIM, 1);
+        claims.put(JwtTokenProvider.TOKEN_VERSION_CLAIM, tokenVersion);
+        return claims;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtTokenProviderTest {
+
+    private static final String SECRET = "VGhpc0lzTXlTdXBlckR1cGVyU2VjcmV0S2V5Rm9ySnd0VGVzdEJhbmtBcHBJRG9udEtub3dXaGVyZUlzTXlNaW5k";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void verifyToken_WhenTokenIsValid_ShouldReturnClaimsAndCacheResult() {
+
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, meterRegistry);
+        String token = provider.generateToken(authentication());
+
+        Optional<Claims> first = provider.verifyToken(token);
+        Optional<Claims> second = provider.verifyToken(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("testuser", first.get().getSubject());
+        assertEquals(1L, first.get().get(JwtTokenProvider.USER_ID_CLAIM, Long.class));
+        assertEquals(3, first.get().get(JwtTokenProvider.TOKEN_VERSION_CLAIM, Integer.class));
+        assertSame(first.get(), second.get());
+
+        assertEquals(1.0, meterRegistry.get("jwt.verification.cache").tag("result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("jwt.verification.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void verifyToken_WhenSignatureIsTampered_ShouldCountFailure() {
+
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, meterRegistry);
+        String token = provider.generateToken(authentication());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(provider.verifyToken(tampered).isEmpty());
+        assertEquals(1.0, meterRegistry.get("jwt.verification.failures").tag("reason", "signature").counter().count());
+    }
+
+    @Test
+    void verifyToken_WhenTokenIsExpired_ShouldCountFailure() {
+
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, -1_000, 100, meterRegistry);
+        String token = provider.generateToken(authentication());
+
+        assertTrue(provider.verifyToken(token).isEmpty());
+        assertEquals(1.0, meterRegistry.get("jwt.verification.failures").tag("reason", "expired").counter().count());
+    }
+
+    @Test
+    void verifyToken_WhenTokenIsGarbage_ShouldCountFailure() {
+
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, meterRegistry);
+
+        assertTrue(provider.verifyToken("not-a-token").isEmpty());
+        assertEquals(1.0, meterRegistry.get("jwt.verification.failures").tag("reason", "malformed").counter().count());
+    }
+
+    private Authentication authentication() {
+        UserPrincipal principal = new UserPrincipal(1L, "testuser", "password", Set.of(new SimpleGrantedAuthority("ROLE_USER")), 3);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Кэш балансов под нагрузкой: переводы идут параллельно с постоянными опросами баланса тех же карт,
+ * так что промахи кэша конкурируют с обновлениями после коммита. Баланс из кэша должен совпадать с БД.
+ */
+@SpringBootTest(properties = "cards.backfill.initial-delay=3600000")
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class CardBalanceCacheConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    private static final int POLLERS = 8;
+    private static final int TRANSFERS_PER_WRITER = 200;
+    private static final int CARDS = 4;
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void balancePolledAfterOwnTransfer_ShouldReflectIt() throws Exception {
+
+        User owner = userRepository.findByUsername("user001").orElseThrow();
+        Card from = createCard(owner, new BigDecimal("1000.00"));
+        Card to = createCard(owner, BigDecimal.ZERO);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> pollers = startPollers(owner, List.of(from, to), running);
+        try {
+            for (int i = 1; i <= TRANSFERS_PER_WRITER; i++) {
+                cardService.transferMoney(transfer(from.getId(), to.getId()), owner.getId(), null);
+
+                // Единственный писатель: сразу после перевода кэш обязан отдать новый баланс
+                assertEquals(0, new BigDecimal(1000 - i).compareTo(cardService.getCardBalance(from.getId(), owner.getId()).getBalance()));
+                assertEquals(0, new BigDecimal(i).compareTo(cardService.getCardBalance(to.getId(), owner.getId()).getBalance()));
+            }
+        } finally {
+            running.set(false);
+        }
+        for (Future<?> poller : pollers) {
+            poller.get();
+        }
+    }
+
+    @Test
+    void concurrentTransfersAndPolls_ShouldLeaveCacheEqualToDatabase() throws Exception {
+
+        User owner = userRepository.findByUsername("user001").orElseThrow();
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(createCard(owner, new BigDecimal("1000000.00")));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> pollers = startPollers(owner, cards, running);
+
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < WRITERS; t++) {
+            futures.add(writers.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_WRITER; i++) {
+                    int from = ThreadLocalRandom.current().nextInt(CARDS);
+                    int to = (from + 1 + ThreadLocalRandom.current().nextInt(CARDS - 1)) % CARDS;
+                    cardService.transferMoney(transfer(cards.get(from).getId(), cards.get(to).getId()), owner.getId(), null);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            running.set(false);
+            writers.shutdown();
+        }
+        for (Future<?> poller : pollers) {
+            poller.get();
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Card card : cards) {
+            BigDecimal cached = cardService.getCardBalance(card.getId(), owner.getId()).getBalance();
+            BigDecimal stored = cardRepository.findById(card.getId()).orElseThrow().getBalance();
+            assertEquals(0, stored.compareTo(cached), "Карта " + card.getId());
+            total = total.add(cached);
+        }
+        assertEquals(0, new BigDecimal("1000000.00").multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+    }
+
+    private List<Future<?>> startPollers(User owner, List<Card> cards, AtomicBoolean running) {
+        ExecutorService executor = Executors.newFixedThreadPool(POLLERS);
+        List<Future<?>> pollers = new ArrayList<>();
+        for (int t = 0; t < POLLERS; t++) {
+            pollers.add(executor.submit(() -> {
+                while (running.get()) {
+                    Card card = cards.get(ThreadLocalRandom.current().nextInt(cards.size()));
+                    cardService.getCardBalance(card.getId(), owner.getId());
+                }
+                return null;
+            }));
+        }
+        executor.shutdown();
+        return pollers;
+    }
+
+    private Card createCard(User owner, BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setCardNumber("balance-" + System.nanoTime());
+        card.setExpiryDate(LocalDate.now().plusYears(3));
+        card.setBalance(balance);
+        card.setStatus(CardStatus.ACTIVE);
+        return cardRepository.save(card);
+    }
+
+    private TransferRequestDto transfer(Long fromCardId, Long toCardId) {
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(fromCardId);
+        dto.setToCardId(toCardId);
+        dto.setAmount(BigDecimal.ONE);
+        return dto;
+    }
+}
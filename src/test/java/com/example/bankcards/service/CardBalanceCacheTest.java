@@ -0,0 +1,186 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardBalance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardBalanceCacheTest {
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardBalanceCache cardBalanceCache;
+
+    @BeforeEach
+    void setUp() {
+        cardBalanceCache = new CardBalanceCache(cardRepository, transactionManager, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndServeRepeatedPollsFromCache() {
+
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")));
+
+        assertEquals(new BigDecimal("100.00"), cardBalanceCache.get(1L).balance());
+        assertEquals(new BigDecimal("100.00"), cardBalanceCache.get(1L).balance());
+
+        verify(cardRepository, times(1)).findBalanceById(1L);
+    }
+
+    @Test
+    void get_WhenCardDoesNotExist_ShouldNotCacheAbsence() {
+
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.empty());
+
+        assertNull(cardBalanceCache.get(1L));
+        assertNull(cardBalanceCache.get(1L));
+
+        verify(cardRepository, times(2)).findBalanceById(1L);
+    }
+
+    @Test
+    void refresh_ShouldReloadOnlyCachedCards() {
+
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")), Optional.of(balance("90.00")));
+        cardBalanceCache.get(1L);
+
+        cardBalanceCache.refresh(1L, 2L);
+
+        assertEquals(new BigDecimal("90.00"), cardBalanceCache.get(1L).balance());
+        verify(cardRepository, times(2)).findBalanceById(1L);
+        verify(cardRepository, never()).findBalanceById(2L);
+    }
+
+    @Test
+    void refresh_WhenCardWasDeleted_ShouldDropIt() {
+
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")), Optional.empty());
+        cardBalanceCache.get(1L);
+
+        cardBalanceCache.refresh(1L);
+
+        assertNull(cardBalanceCache.get(1L));
+    }
+
+    @Test
+    void evictAfterCommit_ShouldKeepEntryUntilTransactionCommits() {
+
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")));
+        cardBalanceCache.get(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cardBalanceCache.evictAfterCommit(1L);
+        cardBalanceCache.get(1L);
+        verify(cardRepository, times(1)).findBalanceById(1L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cardBalanceCache.get(1L);
+        verify(cardRepository, times(2)).findBalanceById(1L);
+    }
+
+    @Test
+    void reloadAfterTtlWithoutChange_ShouldKeepVersion() throws Exception {
+
+        CardBalanceCache shortLived = new CardBalanceCache(cardRepository, transactionManager, new SimpleMeterRegistry(),
+                100, Duration.ofMillis(1));
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")));
+
+        String version = shortLived.get(1L).version();
+        Thread.sleep(20);
+
+        assertEquals(version, shortLived.get(1L).version());
+        verify(cardRepository, times(2)).findBalanceById(1L);
+    }
+
+    @Test
+    void sameBalanceOnAnotherInstance_ShouldHaveSameVersion() {
+
+        CardBalanceCache otherInstance = new CardBalanceCache(cardRepository, transactionManager, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1));
+        when(cardRepository.findBalanceById(1L)).thenReturn(Optional.of(balance("100.00")));
+
+        assertEquals(cardBalanceCache.get(1L).version(), otherInstance.get(1L).version());
+    }
+
+    @Test
+    void refresh_WhenOwnerCardsVersionChanged_ShouldChangeVersion() {
+
+        when(cardRepository.findBalanceById(1L))
+                .thenReturn(Optional.of(balance("100.00", 3L)), Optional.of(balance("90.00", 4L)));
+        String version = cardBalanceCache.get(1L).version();
+
+        cardBalanceCache.refresh(1L);
+
+        assertEquals("1-3", version);
+        assertEquals("1-4", cardBalanceCache.get(1L).version());
+    }
+
+    @Test
+    void refreshDuringSlowMiss_ShouldNotWaitForItAndKeepNewerBalance() throws Exception {
+
+        CountDownLatch missStarted = new CountDownLatch(1);
+        CountDownLatch releaseMiss = new CountDownLatch(1);
+        when(cardRepository.findBalanceById(1L))
+                .thenAnswer(invocation -> {
+                    // Промах прочитал баланс до коммита перевода и задерживается
+                    missStarted.countDown();
+                    assertTrue(releaseMiss.await(5, TimeUnit.SECONDS));
+                    return Optional.of(balance("100.00"));
+                })
+                .thenReturn(Optional.of(balance("90.00")));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CardBalanceCache.CachedBalance> miss = executor.submit(() -> cardBalanceCache.get(1L));
+            assertTrue(missStarted.await(5, TimeUnit.SECONDS));
+
+            cardBalanceCache.refresh(1L);
+            releaseMiss.countDown();
+
+            assertEquals(new BigDecimal("100.00"), miss.get(5, TimeUnit.SECONDS).balance());
+            assertEquals(new BigDecimal("90.00"), cardBalanceCache.get(1L).balance());
+            verify(cardRepository, times(2)).findBalanceById(1L);
+        } finally {
+            releaseMiss.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private CardBalance balance(String amount) {
+        return balance(amount, 3L);
+    }
+
+    private CardBalance balance(String amount, long ownerCardsVersion) {
+        return new CardBalance(new BigDecimal(amount), 7L, ownerCardsVersion);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.dto.PendingBlockClaimDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardBlockClaim;
+import com.example.bankcards.repository.projection.CardSummary;
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardBlockQueueServiceImplTest {
+
+    private static final Long ADMIN_ID = 5L;
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private EncryptionUtil encryptionUtil;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+
+    private CardBlockQueueServiceImpl cardBlockQueueService;
+
+    @BeforeEach
+    void setUp() {
+        cardBlockQueueService = new CardBlockQueueServiceImpl(cardRepository, encryptionUtil, cardVersionRegistry, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void claimPendingBlocks_ShouldLeaseFreeRequestsToAdmin() {
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        when(cardRepository.findClaimablePendingBlockIds(any(), page.capture())).thenReturn(List.of(11L, 12L));
+        when(cardRepository.findSummariesByIds(List.of(11L, 12L))).thenReturn(List.of(
+                summary(11L), summary(12L)));
+
+        Instant before = Instant.now();
+        PendingBlockClaimDto claim = cardBlockQueueService.claimPendingBlocks(ADMIN_ID, 1000);
+
+        // Размер порции ограничен сверху
+        assertEquals(PageRequest.of(0, 100), page.getValue());
+        assertEquals(2, claim.getCards().size());
+        assertEquals("************0011", claim.getCards().get(0).getMaskedCardNumber());
+        assertFalse(claim.getClaimedUntil().isBefore(before.plus(Duration.ofMinutes(5))));
+        verify(cardRepository).claimPendingBlocks(List.of(11L, 12L), ADMIN_ID, claim.getClaimedUntil());
+    }
+
+    @Test
+    void claimPendingBlocks_WhenQueueIsEmpty_ShouldNotUpdate() {
+
+        when(cardRepository.findClaimablePendingBlockIds(any(), any())).thenReturn(List.of());
+
+        assertTrue(cardBlockQueueService.claimPendingBlocks(ADMIN_ID, 10).getCards().isEmpty());
+        verify(cardRepository, never()).claimPendingBlocks(any(), anyLong(), any());
+    }
+
+    @Test
+    void approveBlocks_ShouldBlockOnlyCardsClaimedByAdmin() {
+
+        when(cardRepository.findBlockClaimsForUpdate(List.of(11L, 12L, 13L, 14L))).thenReturn(List.of(
+                new CardBlockClaim(11L, CardStatus.PENDING_BLOCK, ADMIN_ID, Instant.now().plusSeconds(60)),
+                new CardBlockClaim(12L, CardStatus.PENDING_BLOCK, 6L, Instant.now().plusSeconds(60)),
+                new CardBlockClaim(13L, CardStatus.ACTIVE, null, null)));
+
+        BulkStatusChangeResultDto result = cardBlockQueueService.approveBlocks(ADMIN_ID, List.of(11L, 12L, 13L, 14L, 11L));
+
+        assertEquals(List.of(11L), result.getChanged());
+        assertEquals(List.of(12L, 13L, 14L), result.getRejected().stream().map(BulkStatusChangeResultDto.Rejection::getId).toList());
+        assertEquals("Заявка не взята в работу этим администратором", result.getRejected().get(0).getReason());
+        assertEquals("Карта не ожидает блокировки", result.getRejected().get(1).getReason());
+        assertEquals("Карта с id 14 не найдена", result.getRejected().get(2).getReason());
+        verify(cardRepository).approveClaimedBlocks(eq(List.of(11L)), eq(ADMIN_ID), any());
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(11L));
+    }
+
+    @Test
+    void approveBlocks_WhenLeaseExpired_ShouldRejectIt() {
+
+        when(cardRepository.findBlockClaimsForUpdate(List.of(11L, 12L))).thenReturn(List.of(
+                new CardBlockClaim(11L, CardStatus.PENDING_BLOCK, ADMIN_ID, Instant.now().plusSeconds(60)),
+                new CardBlockClaim(12L, CardStatus.PENDING_BLOCK, ADMIN_ID, Instant.now().minusSeconds(1))));
+
+        BulkStatusChangeResultDto result = cardBlockQueueService.approveBlocks(ADMIN_ID, List.of(11L, 12L));
+
+        assertEquals(List.of(11L), result.getChanged());
+        assertEquals(12L, result.getRejected().get(0).getId());
+        assertEquals("Аренда заявки истекла, возьмите ее в работу заново", result.getRejected().get(0).getReason());
+        verify(cardRepository).approveClaimedBlocks(eq(List.of(11L)), eq(ADMIN_ID), any());
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(11L));
+    }
+
+    @Test
+    void approveBlocks_WhenNothingApproved_ShouldNotUpdate() {
+
+        when(cardRepository.findBlockClaimsForUpdate(List.of(11L))).thenReturn(List.of());
+
+        BulkStatusChangeResultDto result = cardBlockQueueService.approveBlocks(ADMIN_ID, List.of(11L));
+
+        assertTrue(result.getChanged().isEmpty());
+        verify(cardRepository, never()).approveClaimedBlocks(any(), eq(ADMIN_ID), any());
+    }
+
+    private CardSummary summary(Long id) {
+        return new CardSummary(id, String.format("%04d", id), null, LocalDate.of(2030, 1, 1), BigDecimal.TEN, CardStatus.PENDING_BLOCK);
+    }
+}
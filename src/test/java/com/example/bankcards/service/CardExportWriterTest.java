@@ -0,0 +1,46 @@
+package com.example.bankcards.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CardExportWriterTest {
+
+    @Test
+    void ndjson_ShouldWriteOneObjectPerLine() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CardExportWriter writer = CardExportWriter.open(CardExportFormat.NDJSON, out, new JsonFactory())) {
+            writer.writeRow(1L, 7L, "************4444", LocalDate.of(2027, 5, 31), new BigDecimal("100.50"), "ACTIVE");
+            writer.writeRow(2L, 7L, "************1111", null, new BigDecimal("0.00"), "BLOCKED");
+        }
+
+        assertEquals("""
+                {"id":1,"ownerId":7,"maskedCardNumber":"************4444","expiryDate":"2027-05-31","balance":100.50,"status":"ACTIVE"}
+                {"id":2,"ownerId":7,"maskedCardNumber":"************1111","expiryDate":null,"balance":0.00,"status":"BLOCKED"}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csv_ShouldWriteHeaderAndRows() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CardExportWriter writer = CardExportWriter.open(CardExportFormat.CSV, out, new JsonFactory())) {
+            writer.writeRow(1L, 7L, "************4444", LocalDate.of(2027, 5, 31), new BigDecimal("100.50"), "ACTIVE");
+            writer.writeRow(2L, 7L, "************1111", null, new BigDecimal("0.00"), "BLOCKED");
+        }
+
+        assertEquals("""
+                id,ownerId,maskedCardNumber,expiryDate,balance,status
+                1,7,************4444,2027-05-31,100.50,ACTIVE
+                2,7,************1111,,0.00,BLOCKED
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+}
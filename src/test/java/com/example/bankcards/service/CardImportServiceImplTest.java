@@ -0,0 +1,227 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkImportResultDto;
+import com.example.bankcards.dto.BulkImportRowResultDto;
+import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BulkImportTooLargeException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardFingerprintUtil;
+import com.example.bankcards.util.EncryptionUtil;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardImportServiceImplTest {
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+    private static final LocalDate EXPIRY = LocalDate.now().plusYears(3);
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private EncryptionUtil encryptionUtil;
+    @Mock
+    private CardFingerprintUtil cardFingerprintUtil;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardImportServiceImpl cardImportService;
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        cardImportService = new CardImportServiceImpl(cardRepository, userRepository, encryptionUtil, cardFingerprintUtil,
+                VALIDATOR, cardVersionRegistry, transactionManager, 2, 10);
+
+        lenient().when(encryptionUtil.encrypt(anyString())).thenAnswer(invocation -> "enc:" + invocation.getArgument(0));
+        lenient().when(cardFingerprintUtil.fingerprint(anyString())).thenAnswer(invocation -> "fp:" + invocation.getArgument(0));
+        lenient().when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        lenient().when(userRepository.getReferenceById(anyLong())).thenAnswer(invocation -> new User());
+        lenient().when(cardRepository.findExistingFingerprints(anyCollection())).thenReturn(List.of());
+        lenient().when(cardRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            cards.forEach(card -> card.setId(ids.incrementAndGet()));
+            return cards;
+        });
+    }
+
+    @Test
+    void importCards_ShouldReportEachRowAndInsertValidOnesInChunks() {
+
+        when(cardRepository.findExistingFingerprints(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> fingerprints = invocation.getArgument(0);
+            return fingerprints.contains("fp:4000000000000003") ? List.of("fp:4000000000000003") : List.of();
+        });
+
+        BulkImportResultDto result = cardImportService.importCards(List.of(
+                request(1L, "4000000000000001"),
+                request(1L, "4000"),
+                request(1L, "4000000000000001"),
+                request(2L, "4000000000000002"),
+                request(1L, "4000000000000003"),
+                request(1L, "4000000000000004"),
+                request(1L, "4000000000000005")
+        ));
+
+        assertEquals(7, result.getTotal());
+        assertEquals(3, result.getCreated());
+        assertEquals(4, result.getFailed());
+
+        List<BulkImportRowResultDto> rows = result.getRows();
+        assertCreated(rows.get(0), 1, "************0001");
+        assertFailed(rows.get(1), 2, "номер карты должен состоять из 16 цифр");
+        assertFailed(rows.get(2), 3, "Карта с таким номером уже есть выше в запросе");
+        assertFailed(rows.get(3), 4, "Не найден пользователь с id: 2");
+        assertFailed(rows.get(4), 5, "Карта с таким номером уже существует");
+        assertCreated(rows.get(5), 6, "************0004");
+        assertCreated(rows.get(6), 7, "************0005");
+
+        // Четыре строки к вставке при порции в две строки
+        verify(cardRepository, times(2)).findExistingFingerprints(anyCollection());
+        verify(cardRepository, times(2)).saveAll(anyList());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void importCards_WhenChunkHitsConcurrentDuplicate_ShouldRetryRowByRow() {
+
+        when(cardRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("ux_cards_card_fingerprint"));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> {
+            Card card = invocation.getArgument(0);
+            if (card.getLastFour().equals("0002")) {
+                throw new DataIntegrityViolationException("ux_cards_card_fingerprint");
+            }
+            card.setId(ids.incrementAndGet());
+            return card;
+        });
+
+        BulkImportResultDto result = cardImportService.importCards(List.of(
+                request(1L, "4000000000000001"),
+                request(1L, "4000000000000002")
+        ));
+
+        assertCreated(result.getRows().get(0), 1, "************0001");
+        assertFailed(result.getRows().get(1), 2, "Карта с таким номером уже существует");
+    }
+
+    @Test
+    void importCards_WhenRowViolatesOtherConstraint_ShouldNotReportDuplicate() {
+
+        when(cardRepository.saveAll(anyList())).thenThrow(violation("fk_cards_user"));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> {
+            Card card = invocation.getArgument(0);
+            switch (card.getLastFour()) {
+                case "0002" -> throw violation("fk_cards_user");
+                case "0003" -> throw violation("ck_cards_balance");
+                default -> {
+                    card.setId(ids.incrementAndGet());
+                    return card;
+                }
+            }
+        });
+
+        BulkImportResultDto result = cardImportService.importCards(List.of(
+                request(1L, "4000000000000001"),
+                request(1L, "4000000000000002"),
+                request(1L, "4000000000000003")
+        ));
+
+        assertCreated(result.getRows().get(0), 1, "************0001");
+        assertFailed(result.getRows().get(1), 2, "Не найден пользователь с id: 1");
+        assertFailed(result.getRows().get(2), 3, "Нарушено ограничение БД: ck_cards_balance");
+    }
+
+    @Test
+    void importCardsCsv_ShouldSkipHeaderAndReportMalformedLines() {
+
+        String csv = """
+                userId,cardNumber,expiryDate
+                1,4000000000000001,%s
+                x,4000000000000002,%s
+                1,4000000000000003,31.12.2030
+                1,4000000000000004
+
+                1,4000000000000005,2000-01-01
+                """.formatted(EXPIRY, EXPIRY);
+
+        BulkImportResultDto result = cardImportService.importCardsCsv(csv);
+
+        assertEquals(5, result.getTotal());
+        List<BulkImportRowResultDto> rows = result.getRows();
+        assertCreated(rows.get(0), 2, "************0001");
+        assertFailed(rows.get(1), 3, "Некорректный id пользователя: x");
+        assertFailed(rows.get(2), 4, "Некорректная дата, ожидается ГГГГ-ММ-ДД: 31.12.2030");
+        assertFailed(rows.get(3), 5, "Ожидается 3 колонки: userId,cardNumber,expiryDate");
+        assertFailed(rows.get(4), 7, "Дата истечения срока действия должна быть в будущем");
+    }
+
+    @Test
+    void importCards_WhenTooManyRows_ShouldRejectWholeRequest() {
+
+        List<CreateCardRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            requests.add(request(1L, "40000000000000" + String.format("%02d", i)));
+        }
+
+        assertThrows(BulkImportTooLargeException.class, () -> cardImportService.importCards(requests));
+        verifyNoInteractions(cardRepository, encryptionUtil);
+    }
+
+    private DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraint));
+    }
+
+    private CreateCardRequestDto request(Long userId, String cardNumber) {
+        CreateCardRequestDto request = new CreateCardRequestDto();
+        request.setUserId(userId);
+        request.setCardNumber(cardNumber);
+        request.setExpiryDate(EXPIRY);
+        return request;
+    }
+
+    private void assertCreated(BulkImportRowResultDto row, int rowNumber, String maskedCardNumber) {
+        assertEquals(rowNumber, row.getRow());
+        assertEquals(BulkImportRowResultDto.Status.CREATED, row.getStatus());
+        assertNotNull(row.getCardId());
+        assertEquals(maskedCardNumber, row.getMaskedCardNumber());
+        assertNull(row.getError());
+    }
+
+    private void assertFailed(BulkImportRowResultDto row, int rowNumber, String error) {
+        assertEquals(rowNumber, row.getRow());
+        assertEquals(BulkImportRowResultDto.Status.FAILED, row.getStatus());
+        assertNull(row.getCardId());
+        assertEquals(error, row.getError());
+    }
+}
@@ -2,30 +2,51 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.BalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardField;
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.dto.CardTransferDto;
 import com.example.bankcards.dto.CreateCardRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransferDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferEntry;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.DuplicateCardException;
+import com.example.bankcards.exception.IdempotencyKeyConflictException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferEntryRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardSummary;
+import com.example.bankcards.util.CardFingerprintUtil;
+import com.example.bankcards.util.CursorUtil;
 import com.example.bankcards.util.EncryptionUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,92 +60,139 @@ public class CardServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private EncryptionUtil encryptionUtil;
+    @Mock
+    private CardFingerprintUtil cardFingerprintUtil;
+    @Mock
+    private TransferEngine transferEngine;
+    @Mock
+    private TransferLedger transferLedger;
+    @Mock
+    private TransferEntryRepository transferEntryRepository;
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
     @InjectMocks
     private CardServiceImpl cardService;
 
     @Test
-    void transferMoney_WhenSuccessful_ShouldUpdateBalancesAndSaveChanges() {
-
-        String username = "testuser";
-        User owner = new User();
-        owner.setId(1L);
-        owner.setUsername(username);
-
-        Card fromCard = new Card();
-        fromCard.setId(1L);
-        fromCard.setOwner(owner);
-        fromCard.setStatus(CardStatus.ACTIVE);
-        fromCard.setBalance(new BigDecimal("1000.00"));
-
-        Card toCard = new Card();
-        toCard.setId(2L);
-        toCard.setOwner(owner);
-        toCard.setStatus(CardStatus.ACTIVE);
-        toCard.setBalance(new BigDecimal("500.00"));
+    void transferMoney_ShouldDelegateToTransferEngine() {
 
         TransferRequestDto transferDto = new TransferRequestDto();
         transferDto.setFromCardId(10L);
         transferDto.setToCardId(20L);
         transferDto.setAmount(new BigDecimal("200.00"));
 
-        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(20L)).thenReturn(Optional.of(toCard));
+        when(transferEngine.transfer(10L, 20L, new BigDecimal("200.00"), 1L, null))
+                .thenReturn(transfer(7L, 10L, 20L, "200.00"));
 
-        cardService.transferMoney(transferDto, username);
+        TransferDto result = cardService.transferMoney(transferDto, 1L, null);
 
-        assertEquals(new BigDecimal("800.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("700.00"), toCard.getBalance());
+        assertEquals(7L, result.getId());
+        assertFalse(result.isReplayed());
+        verifyNoInteractions(transferLedger);
+        verify(cardBalanceCache).refresh(10L, 20L);
+    }
+
+    @Test
+    void transferMoney_WhenTransferFails_ShouldStillRefreshCachedBalances() {
 
-        verify(cardRepository, times(2)).save(any(Card.class));
+        when(transferEngine.transfer(10L, 20L, new BigDecimal("200.00"), 1L, null))
+                .thenThrow(new IllegalStateException("Недостаточно средств на карте-отправителе"));
+
+        assertThrows(IllegalStateException.class, () -> cardService.transferMoney(transferRequest(10L, 20L, "200.00"), 1L, null));
+
+        verify(cardBalanceCache).refresh(10L, 20L);
     }
 
     @Test
-    void transferMoney_WhenLowBalance_ShouldThrowException() {
+    void transferMoney_WithNewIdempotencyKey_ShouldTransferAndRememberResult() {
 
-        String username = "testuser";
-        User owner = new User();
-        owner.setUsername(username);
+        TransferRequestDto transferDto = transferRequest(10L, 20L, "200.00");
+        Transfer transfer = transfer(7L, 10L, 20L, "200.00");
+
+        when(transferLedger.findByIdempotencyKey(1L, "key-1")).thenReturn(Optional.empty());
+        when(transferEngine.transfer(10L, 20L, new BigDecimal("200.00"), 1L, "key-1")).thenReturn(transfer);
+
+        TransferDto result = cardService.transferMoney(transferDto, 1L, "key-1");
+
+        assertEquals(7L, result.getId());
+        assertFalse(result.isReplayed());
+        verify(transferLedger).remember(1L, "key-1", transfer);
+    }
+
+    @Test
+    void transferMoney_WhenIdempotencyKeyWasUsed_ShouldReturnStoredTransferWithoutMovingMoney() {
+
+        when(transferLedger.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(transfer(7L, 10L, 20L, "200.00")));
+
+        TransferDto result = cardService.transferMoney(transferRequest(10L, 20L, "200"), 1L, "key-1");
+
+        assertEquals(7L, result.getId());
+        assertTrue(result.isReplayed());
+        verifyNoInteractions(transferEngine);
+    }
+
+    @Test
+    void transferMoney_WhenIdempotencyKeyWasUsedForAnotherTransfer_ShouldThrowException() {
+
+        when(transferLedger.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(transfer(7L, 10L, 20L, "200.00")));
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> {
+            cardService.transferMoney(transferRequest(10L, 20L, "300.00"), 1L, "key-1");
+        });
+
+        verifyNoInteractions(transferEngine);
+    }
+
+    @Test
+    void transferMoney_WhenConcurrentRequestCommittedSameKey_ShouldReturnItsTransfer() {
 
-        Card fromCard = new Card();
-        fromCard.setOwner(owner);
-        fromCard.setStatus(CardStatus.ACTIVE);
-        fromCard.setBalance(new BigDecimal("100.00"));
+        when(transferLedger.findByIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(transfer(7L, 10L, 20L, "200.00")));
+        when(transferEngine.transfer(10L, 20L, new BigDecimal("200.00"), 1L, "key-1"))
+                .thenThrow(new DataIntegrityViolationException("ux_transfers_user_idempotency_key"));
 
-        Card toCard = new Card();
-        toCard.setOwner(owner);
-        toCard.setStatus(CardStatus.ACTIVE);
+        TransferDto result = cardService.transferMoney(transferRequest(10L, 20L, "200.00"), 1L, "key-1");
+
+        assertEquals(7L, result.getId());
+        assertTrue(result.isReplayed());
+    }
+
+    @Test
+    void transferMoney_WhenSameCard_ShouldThrowException() {
 
         TransferRequestDto transferDto = new TransferRequestDto();
-        transferDto.setFromCardId(1L);
-        transferDto.setToCardId(2L);
+        transferDto.setFromCardId(10L);
+        transferDto.setToCardId(10L);
         transferDto.setAmount(new BigDecimal("200.00"));
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
-
-        assertThrows(IllegalStateException.class, () -> {
-            cardService.transferMoney(transferDto, username);
+        assertThrows(IllegalArgumentException.class, () -> {
+            cardService.transferMoney(transferDto, 1L, null);
         });
 
-        verify(cardRepository, never()).save(any(Card.class));
+        verifyNoInteractions(transferEngine);
     }
 
     @Test
     void requestCardBlock_WhenCardIsActive_ShouldSetStatusToPendingBlock() {
 
-        String username = "testuser";
+        Long userId = 1L;
         User owner = new User();
-        owner.setUsername(username);
+        owner.setId(userId);
 
         Card activeCard = new Card();
         activeCard.setId(1L);
         activeCard.setOwner(owner);
         activeCard.setStatus(CardStatus.ACTIVE);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(activeCard));
+        when(cardRepository.findByIdAndOwnerId(1L, userId)).thenReturn(Optional.of(activeCard));
         when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        cardService.requestCardBlock(1L, username);
+        cardService.requestCardBlock(1L, userId);
 
         assertEquals(CardStatus.PENDING_BLOCK, activeCard.getStatus());
 
@@ -134,19 +202,19 @@ public class CardServiceImplTest {
     @Test
     void requestCardBlock_WhenCardIsBlocked_ShouldThrowException() {
 
-        String username = "testuser";
+        Long userId = 1L;
         User owner = new User();
-        owner.setUsername(username);
+        owner.setId(userId);
 
         Card blockedCard = new Card();
         blockedCard.setId(1L);
         blockedCard.setOwner(owner);
         blockedCard.setStatus(CardStatus.BLOCKED);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(blockedCard));
+        when(cardRepository.findByIdAndOwnerId(1L, userId)).thenReturn(Optional.of(blockedCard));
 
         assertThrows(IllegalStateException.class, () -> {
-            cardService.requestCardBlock(1L, username);
+            cardService.requestCardBlock(1L, userId);
         });
 
         verify(cardRepository, never()).save(any(Card.class));
@@ -155,19 +223,32 @@ public class CardServiceImplTest {
     @Test
     void requestCardBlock_WhenCardIsExpired_ShouldThrowException() {
 
-        String username = "testuser";
+        Long userId = 1L;
         User owner = new User();
-        owner.setUsername(username);
+        owner.setId(userId);
 
         Card blockedCard = new Card();
         blockedCard.setId(1L);
         blockedCard.setOwner(owner);
         blockedCard.setStatus(CardStatus.EXPIRED);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(blockedCard));
+        when(cardRepository.findByIdAndOwnerId(1L, userId)).thenReturn(Optional.of(blockedCard));
 
         assertThrows(IllegalStateException.class, () -> {
-            cardService.requestCardBlock(1L, username);
+            cardService.requestCardBlock(1L, userId);
+        });
+
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void requestCardBlock_WhenCardBelongsToAnotherUser_ShouldThrowAccessDenied() {
+
+        when(cardRepository.findByIdAndOwnerId(1L, 2L)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> {
+            cardService.requestCardBlock(1L, 2L);
         });
 
         verify(cardRepository, never()).save(any(Card.class));
@@ -176,8 +257,11 @@ public class CardServiceImplTest {
     @Test
     void blockCardByAdmin_WhenCardIsActive_ShouldSetStatusToBlocked() {
 
+        User owner = new User();
+        owner.setId(7L);
         Card cardToBlock = new Card();
         cardToBlock.setId(1L);
+        cardToBlock.setOwner(owner);
         cardToBlock.setStatus(CardStatus.ACTIVE);
 
         when(cardRepository.findById(1L)).thenReturn(Optional.of(cardToBlock));
@@ -188,13 +272,17 @@ public class CardServiceImplTest {
         assertEquals(CardStatus.BLOCKED, cardToBlock.getStatus());
 
         verify(cardRepository).save(cardToBlock);
+        verify(cardVersionRegistry).cardsChanged(7L);
     }
 
     @Test
     void activateCardByAdmin_WhenCardIsBlocked_ShouldSetStatusToActive() {
 
+        User owner = new User();
+        owner.setId(7L);
         Card cardToActivate = new Card();
         cardToActivate.setId(1L);
+        cardToActivate.setOwner(owner);
         cardToActivate.setStatus(CardStatus.BLOCKED);
 
         when(cardRepository.findById(1L)).thenReturn(Optional.of(cardToActivate));
@@ -205,20 +293,22 @@ public class CardServiceImplTest {
         assertEquals(CardStatus.ACTIVE, cardToActivate.getStatus());
 
         verify(cardRepository).save(cardToActivate);
+        verify(cardVersionRegistry).cardsChanged(7L);
     }
 
     @Test
-    void deleteCardByAdmin_WhenCardExists_ShouldCallDeleteById() {
+    void deleteCardByAdmin_WhenCardExists_ShouldMarkCardDeleted() {
 
         Long cardId = 1L;
 
-        when(cardRepository.existsById(cardId)).thenReturn(true);
-
-        doNothing().when(cardRepository).deleteById(cardId);
+        when(cardRepository.softDelete(eq(cardId), any(Instant.class))).thenReturn(1);
 
         cardService.deleteCardByAdmin(cardId);
 
-        verify(cardRepository, times(1)).deleteById(cardId);
+        verify(cardRepository, times(1)).softDelete(eq(cardId), any(Instant.class));
+        verify(cardRepository, never()).deleteById(anyLong());
+        verify(cardBalanceCache).evictAfterCommit(cardId);
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(cardId));
     }
 
     @Test
@@ -226,7 +316,7 @@ public class CardServiceImplTest {
 
         Long cardId = 1L;
 
-        when(cardRepository.existsById(cardId)).thenReturn(false);
+        when(cardRepository.softDelete(eq(cardId), any(Instant.class))).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> {
             cardService.deleteCardByAdmin(cardId);
@@ -236,43 +326,37 @@ public class CardServiceImplTest {
     }
 
     @Test
-    void getCardBalance_WhenUserIsOwner_ShouldReturnBalanceDto() {
-
-        String username = "testuser";
-        User owner = new User();
-        owner.setUsername(username);
-
-        Card card = new Card();
-        card.setId(1L);
-        card.setOwner(owner);
-        card.setBalance(new BigDecimal("100.50"));
+    void getCardBalance_WhenUserIsOwner_ShouldReturnCachedBalanceWithoutRepositoryCalls() {
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardBalanceCache.get(1L)).thenReturn(new CardBalanceCache.CachedBalance(new BigDecimal("100.50"), 1L, "v1"));
 
-        BalanceDto result = cardService.getCardBalance(1L, username);
+        BalanceDto result = cardService.getCardBalance(1L, 1L);
 
         assertNotNull(result);
         assertEquals(new BigDecimal("100.50"), result.getBalance());
+        assertEquals("v1", result.getVersion());
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
     void getCardBalance_WhenUserIsNotOwner_ShouldThrowException() {
 
-        String ownerUsername = "owner";
-        String otherUsername = "other";
+        when(cardBalanceCache.get(1L)).thenReturn(new CardBalanceCache.CachedBalance(new BigDecimal("100.50"), 1L, "v1"));
 
-        User owner = new User();
-        owner.setUsername(ownerUsername);
+        assertThrows(AccessDeniedException.class, () -> {
+            cardService.getCardBalance(1L, 2L);
+        });
+    }
 
-        Card card = new Card();
-        card.setId(1L);
-        card.setOwner(owner);
+    @Test
+    void getCardBalance_WhenCardDoesNotExist_ShouldThrowResourceNotFoundException() {
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardBalanceCache.get(1L)).thenReturn(null);
 
-        assertThrows(AccessDeniedException.class, () -> {
-            cardService.getCardBalance(1L, otherUsername);
+        assertThrows(ResourceNotFoundException.class, () -> {
+            cardService.getCardBalance(1L, 1L);
         });
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
@@ -290,14 +374,15 @@ public class CardServiceImplTest {
         savedCard.setId(1L);
         savedCard.setOwner(owner);
         savedCard.setCardNumber("ЗАШИФРОВАННЫЙ_НОМЕР");
+        savedCard.setLastFour("4444");
         savedCard.setStatus(CardStatus.ACTIVE);
         savedCard.setBalance(BigDecimal.ZERO);
         savedCard.setExpiryDate(requestDto.getExpiryDate());
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
         when(encryptionUtil.encrypt("1111222233334444")).thenReturn("ЗАШИФРОВАННЫЙ_НОМЕР");
-        when(cardRepository.save(any(Card.class))).thenReturn(savedCard);
-        when(encryptionUtil.decrypt("ЗАШИФРОВАННЫЙ_НОМЕР")).thenReturn("1111222233334444");
+        when(cardFingerprintUtil.fingerprint("1111222233334444")).thenReturn("ОТПЕЧАТОК");
+        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(savedCard);
 
         CardDto resultDto = cardService.createCard(requestDto);
 
@@ -309,40 +394,28 @@ public class CardServiceImplTest {
 
         verify(userRepository).findById(1L);
         verify(encryptionUtil).encrypt("1111222233334444");
-        verify(cardRepository).save(any(Card.class));
-        verify(encryptionUtil).decrypt("ЗАШИФРОВАННЫЙ_НОМЕР");
+        ArgumentCaptor<Card> cardCaptor = ArgumentCaptor.forClass(Card.class);
+        verify(cardRepository).saveAndFlush(cardCaptor.capture());
+        assertEquals("4444", cardCaptor.getValue().getLastFour());
+        assertEquals("ОТПЕЧАТОК", cardCaptor.getValue().getCardFingerprint());
+        verify(encryptionUtil, never()).decrypt(anyString());
     }
 
     @Test
-    void getCardsByUsername_ShouldReturnPagedCards() {
+    @SuppressWarnings("unchecked")
+    void getUserCards_ShouldReturnPagedCardsWithSingleQuery() {
 
-        String username = "testuser";
         Long userId = 1L;
 
-        User owner = new User();
-        owner.setId(userId);
-        owner.setUsername(username);
-
-        Card cardFromDb = new Card();
-        cardFromDb.setId(1L);
-        cardFromDb.setOwner(owner);
-        cardFromDb.setCardNumber("ЗАШИФРОВАННЫЙ_НОМЕР");
-        cardFromDb.setExpiryDate(LocalDate.now().plusYears(3));
-        cardFromDb.setBalance(new BigDecimal("10.00"));
-        cardFromDb.setStatus(CardStatus.ACTIVE);
-
-        List<Card> cardList = List.of(cardFromDb);
-        Page<Card> pageFromDb = new PageImpl<>(cardList, PageRequest.of(0, 10), 1);
+        CardSummary cardFromDb = new CardSummary(1L, "4444", null, LocalDate.now().plusYears(3),
+                new BigDecimal("10.00"), CardStatus.ACTIVE);
 
         Pageable pageable = PageRequest.of(0, 10);
+        Page<CardSummary> pageFromDb = new PageImpl<>(List.of(cardFromDb), pageable, 1);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(owner));
-        when(cardRepository.findByOwnerId(userId, pageable)).thenReturn(pageFromDb);
-
-        when(encryptionUtil.decrypt("ЗАШИФРОВАННЫЙ_НОМЕР")).thenReturn("1111222233334444");
-
+        when(cardRepository.searchSummaries(any(Specification.class), eq(CardField.ALL), eq(pageable))).thenReturn(pageFromDb);
 
-        Page<CardDto> resultPage = cardService.getCardsByUsername(username, pageable);
+        Page<CardDto> resultPage = cardService.getUserCards(userId, CardField.ALL, pageable);
 
 
         assertNotNull(resultPage);
@@ -356,28 +429,228 @@ public class CardServiceImplTest {
         assertEquals(CardStatus.ACTIVE.name(), resultDto.getStatus());
         assertEquals(new BigDecimal("10.00"), resultDto.getBalance());
 
-        verify(userRepository).findByUsername(username);
-        verify(cardRepository).findByOwnerId(userId, pageable);
-        verify(encryptionUtil).decrypt("ЗАШИФРОВАННЫЙ_НОМЕР");
+        verifyNoInteractions(userRepository);
+        verify(cardRepository).searchSummaries(any(Specification.class), eq(CardField.ALL), eq(pageable));
         verifyNoMoreInteractions(cardRepository);
-        verifyNoMoreInteractions(encryptionUtil);
+        verifyNoInteractions(encryptionUtil);
     }
 
     @Test
-    void getCardsByUsername_WhenUserNotFound_ShouldThrowException() {
+    @SuppressWarnings("unchecked")
+    void getUserCards_WithFields_ShouldFillOnlyRequestedFieldsWithoutDecrypt() {
 
-        String username = "testuser";
+        Set<CardField> fields = EnumSet.of(CardField.ID, CardField.BALANCE);
+        // Колонки вне fields репозиторий не выбирает и возвращает null
+        CardSummary cardFromDb = new CardSummary(1L, null, null, null, new BigDecimal("10.00"), null);
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(cardRepository.searchSummaries(any(Specification.class), eq(fields), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(cardFromDb), pageable, 1));
+
+        CardDto resultDto = cardService.getUserCards(1L, fields, pageable).getContent().get(0);
+
+        assertEquals(fields, resultDto.getFields());
+        assertEquals(1L, resultDto.getId());
+        assertEquals(new BigDecimal("10.00"), resultDto.getBalance());
+        assertNull(resultDto.getMaskedCardNumber());
+        assertNull(resultDto.getStatus());
+        verifyNoInteractions(encryptionUtil);
+    }
+
+    @Test
+    void getUserCardsETag_ShouldDependOnVersionAndRequestWithoutLoadingCards() {
+
+        when(cardVersionRegistry.version(1L)).thenReturn(3L, 3L, 4L);
+
+        String eTag = cardService.getUserCardsETag(1L, EnumSet.of(CardField.ID, CardField.BALANCE), PageRequest.of(2, 10));
+
+        assertEquals("1-3-2-10-id,balance", eTag);
+        assertNotEquals(eTag, cardService.getUserCardsETag(1L, CardField.ALL, PageRequest.of(2, 10)));
+        assertNotEquals(eTag, cardService.getUserCardsETag(1L, EnumSet.of(CardField.ID, CardField.BALANCE), PageRequest.of(2, 10)));
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAllCards_WhenLastFourIsNotBackfilled_ShouldFallBackToDecrypt() {
+
+        CardSummary legacyCard = new CardSummary(1L, null, "ЗАШИФРОВАННЫЙ_НОМЕР", null, null, CardStatus.ACTIVE);
+
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(cardRepository.searchSummaries(any(Specification.class), eq(CardField.ALL), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(legacyCard), pageable, 1));
+        when(encryptionUtil.decrypt("ЗАШИФРОВАННЫЙ_НОМЕР")).thenReturn("1111222233334444");
+
+        Page<CardDto> resultPage = cardService.getAllCards(CardField.ALL, pageable);
+
+        assertEquals("************4444", resultPage.getContent().get(0).getMaskedCardNumber());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAllCardsAfter_ShouldSeekByIdWithoutCount() {
+
+        CardSummary card = new CardSummary(101L, "4444", null, null, null, CardStatus.ACTIVE);
+
+        when(cardRepository.searchSummariesAfter(any(Specification.class), eq(CardField.ALL), eq(100L), eq(10)))
+                .thenReturn(new SliceImpl<>(List.of(card), PageRequest.of(0, 10), false));
+
+        Slice<CardDto> result = cardService.getAllCardsAfter(100L, CardField.ALL, 10);
+
+        assertEquals(101L, result.getContent().get(0).getId());
+        assertFalse(result.hasNext());
+        verify(cardRepository, never()).searchSummaries(any(Specification.class), any(), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchCards_ShouldQuerySummariesBySpecification() {
+
+        CardSummary card = new CardSummary(5L, "4444", null, null, new BigDecimal("150.00"), CardStatus.PENDING_BLOCK);
+        CardSearchFilterDto filter = new CardSearchFilterDto();
+        filter.setStatus(CardStatus.PENDING_BLOCK);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(cardRepository.searchSummaries(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(card), pageable, 1));
+
+        Page<CardDto> result = cardService.searchCards(filter, pageable);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals("************4444", result.getContent().get(0).getMaskedCardNumber());
+        verifyNoInteractions(encryptionUtil);
+    }
+
+    @Test
+    void createCard_WhenCardNumberAlreadyExists_ShouldThrowDuplicateCardException() {
+
+        CreateCardRequestDto requestDto = new CreateCardRequestDto();
+        requestDto.setUserId(1L);
+        requestDto.setCardNumber("1111222233334444");
+        requestDto.setExpiryDate(LocalDate.now().plusYears(3));
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(encryptionUtil.encrypt("1111222233334444")).thenReturn("ЗАШИФРОВАННЫЙ_НОМЕР");
+        when(cardFingerprintUtil.fingerprint("1111222233334444")).thenReturn("ОТПЕЧАТОК");
+        when(cardRepository.saveAndFlush(any(Card.class))).thenThrow(new DataIntegrityViolationException("ux_cards_card_fingerprint"));
+
+        assertThrows(DuplicateCardException.class, () -> {
+            cardService.createCard(requestDto);
+        });
+    }
+
+    @Test
+    void createCard_WhenOtherConstraintViolated_ShouldNotReportDuplicate() {
+
+        CreateCardRequestDto requestDto = new CreateCardRequestDto();
+        requestDto.setUserId(1L);
+        requestDto.setCardNumber("1111222233334444");
+        requestDto.setExpiryDate(LocalDate.now().plusYears(3));
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(encryptionUtil.encrypt("1111222233334444")).thenReturn("ЗАШИФРОВАННЫЙ_НОМЕР");
+        when(cardFingerprintUtil.fingerprint("1111222233334444")).thenReturn("ОТПЕЧАТОК");
+        when(cardRepository.saveAndFlush(any(Card.class))).thenThrow(new DataIntegrityViolationException("fk_cards_user"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> cardService.createCard(requestDto));
+    }
+
+    @Test
+    void findCardByNumber_ShouldLookUpByFingerprint() {
+
+        Card card = new Card();
+        card.setId(5L);
+        card.setLastFour("4444");
+        card.setStatus(CardStatus.ACTIVE);
+
+        when(cardFingerprintUtil.fingerprint("1111222233334444")).thenReturn("ОТПЕЧАТОК");
+        when(cardRepository.findByCardFingerprint("ОТПЕЧАТОК")).thenReturn(Optional.of(card));
+
+        CardDto resultDto = cardService.findCardByNumber("1111222233334444");
+
+        assertEquals(5L, resultDto.getId());
+        assertEquals("************4444", resultDto.getMaskedCardNumber());
+        verifyNoInteractions(encryptionUtil);
+    }
+
+    @Test
+    void findCardByNumber_WhenCardNotFound_ShouldThrowException() {
+
+        when(cardFingerprintUtil.fingerprint("1111222233334444")).thenReturn("ОТПЕЧАТОК");
+        when(cardRepository.findByCardFingerprint("ОТПЕЧАТОК")).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            cardService.getCardsByUsername(username, pageable);
+            cardService.findCardByNumber("1111222233334444");
         });
+    }
 
-        verify(userRepository).findByUsername(username);
-        verifyNoMoreInteractions(cardRepository);
+    @Test
+    void getCardTransfers_WhenMoreEntriesExist_ShouldReturnPageWithNextCursor() {
+
+        Instant now = Instant.parse("2026-01-01T10:00:00Z");
+        List<TransferEntry> entries = List.of(
+                entry(30L, now),
+                entry(20L, now.minusSeconds(1)),
+                entry(10L, now.minusSeconds(2))
+        );
+        when(transferEntryRepository.findCardHistory(1L, 1L, PageRequest.of(0, 3))).thenReturn(entries);
+
+        CursorPageDto<CardTransferDto> page = cardService.getCardTransfers(1L, 1L, null, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(new BigDecimal("-10.00"), page.getContent().get(0).getAmount());
+        CursorUtil.Position position = CursorUtil.decode(page.getNextCursor());
+        assertEquals(now.minusSeconds(1), position.createdAt());
+        assertEquals(20L, position.id());
+        verifyNoInteractions(cardRepository);
     }
 
+    @Test
+    void getCardTransfers_WithCursor_ShouldSeekAfterCursorPosition() {
+
+        Instant createdAt = Instant.parse("2026-01-01T10:00:00.123456Z");
+        String cursor = CursorUtil.encode(createdAt, 20L);
+        when(transferEntryRepository.findCardHistoryBefore(1L, 1L, createdAt, 20L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(entry(10L, createdAt.minusSeconds(1))));
+
+        CursorPageDto<CardTransferDto> page = cardService.getCardTransfers(1L, 1L, cursor, 2);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getCardTransfers_WhenCardIsNotOwned_ShouldThrowResourceNotFoundException() {
+
+        when(transferEntryRepository.findCardHistory(1L, 1L, PageRequest.of(0, 21))).thenReturn(List.of());
+        when(cardRepository.existsByIdAndOwnerId(1L, 1L)).thenReturn(false);
 
+        assertThrows(ResourceNotFoundException.class, () -> {
+            cardService.getCardTransfers(1L, 1L, null, 20);
+        });
+    }
+
+    private TransferRequestDto transferRequest(Long fromCardId, Long toCardId, String amount) {
+        TransferRequestDto transferDto = new TransferRequestDto();
+        transferDto.setFromCardId(fromCardId);
+        transferDto.setToCardId(toCardId);
+        transferDto.setAmount(new BigDecimal(amount));
+        return transferDto;
+    }
+
+    private Transfer transfer(Long id, Long fromCardId, Long toCardId, String amount) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setFromCardId(fromCardId);
+        transfer.setToCardId(toCardId);
+        transfer.setAmount(new BigDecimal(amount));
+        return transfer;
+    }
+
+    private TransferEntry entry(Long id, Instant createdAt) {
+        TransferEntry entry = new TransferEntry(id * 10, 1L, 2L, new BigDecimal("-10.00"), createdAt);
+        entry.setId(id);
+        return entry;
+    }
 }
@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkStatusChangeRequestDto;
+import com.example.bankcards.dto.BulkStatusChangeResultDto;
+import com.example.bankcards.dto.CardSearchFilterDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardStatusTransition;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.CardIdStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardStatusBulkServiceImplTest {
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardStatusBulkServiceImpl cardStatusBulkService;
+
+    @BeforeEach
+    void setUp() {
+        cardStatusBulkService = new CardStatusBulkServiceImpl(cardRepository, cardVersionRegistry, transactionManager, 2);
+    }
+
+    @Test
+    void changeStatus_ByIds_ShouldUpdateAllowedCardsPerChunkAndRejectTheRest() {
+
+        when(cardRepository.findStatusesForUpdate(List.of(1L, 2L))).thenReturn(List.of(
+                new CardIdStatus(1L, CardStatus.ACTIVE),
+                new CardIdStatus(2L, CardStatus.BLOCKED)));
+        when(cardRepository.findStatusesForUpdate(List.of(3L, 4L))).thenReturn(List.of(
+                new CardIdStatus(4L, CardStatus.PENDING_BLOCK)));
+
+        BulkStatusChangeRequestDto request = new BulkStatusChangeRequestDto();
+        request.setIds(List.of(1L, 2L, 2L, 3L, 4L));
+
+        BulkStatusChangeResultDto result = cardStatusBulkService.changeStatus(CardStatusTransition.BLOCK, request);
+
+        assertEquals(CardStatus.BLOCKED, result.getStatus());
+        assertEquals(List.of(1L, 4L), result.getChanged());
+        assertEquals(2, result.getRejected().size());
+        assertEquals(2L, result.getRejected().get(0).getId());
+        assertEquals("Карта уже заблокирована", result.getRejected().get(0).getReason());
+        assertEquals(3L, result.getRejected().get(1).getId());
+        assertEquals("Карта с id 3 не найдена", result.getRejected().get(1).getReason());
+
+        // Один guarded UPDATE на порцию, а не по карте
+        verify(cardRepository).updateStatus(List.of(1L), CardStatusTransition.BLOCK.getFrom(), CardStatus.BLOCKED);
+        verify(cardRepository).updateStatus(List.of(4L), CardStatusTransition.BLOCK.getFrom(), CardStatus.BLOCKED);
+        verify(cardRepository, never()).save(any());
+        // Версия карт растет только у владельцев измененных карт, в транзакции порции
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(1L));
+        verify(cardVersionRegistry).cardOwnersChanged(List.of(4L));
+    }
+
+    @Test
+    void changeStatus_ByFilter_ShouldWalkMatchingIdsInChunks() {
+
+        when(cardRepository.findIds(any(), anyLong(), anyInt()))
+                .thenReturn(List.of(5L, 6L))
+                .thenReturn(List.of(7L))
+                .thenReturn(List.of());
+        when(cardRepository.findStatusesForUpdate(any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new CardIdStatus(id, CardStatus.BLOCKED)).toList();
+        });
+
+        CardSearchFilterDto filter = new CardSearchFilterDto();
+        filter.setOwnerId(1L);
+        BulkStatusChangeRequestDto request = new BulkStatusChangeRequestDto();
+        request.setFilter(filter);
+
+        BulkStatusChangeResultDto result = cardStatusBulkService.changeStatus(CardStatusTransition.ACTIVATE, request);
+
+        assertEquals(List.of(5L, 6L, 7L), result.getChanged());
+        assertEquals(0, result.getRejected().size());
+        verify(cardRepository).findIds(any(), eq(0L), eq(2));
+        verify(cardRepository).findIds(any(), eq(6L), eq(2));
+        verify(cardRepository).findIds(any(), eq(7L), eq(2));
+        verify(cardRepository, times(2)).updateStatus(any(), eq(CardStatusTransition.ACTIVATE.getFrom()), eq(CardStatus.ACTIVE));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Тот же сценарий с "горячей" картой для движка условных UPDATE.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@TestPropertySource(properties = "cards.transfer.engine=conditional")
+public class ConditionalTransferConcurrencyTest extends TransferConcurrencyTest {
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConditionalUpdateTransferEngineTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("200.00");
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private RetryingTransactionExecutor transactionExecutor;
+    @Mock
+    private TransferLedger transferLedger;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+
+    private ConditionalUpdateTransferEngine transferEngine;
+
+    @BeforeEach
+    void setUp() {
+        transferEngine = new ConditionalUpdateTransferEngine(cardRepository, jdbcTemplate, transactionExecutor, transferLedger,
+                cardVersionRegistry, 3000);
+    }
+
+    @Test
+    void doTransfer_WhenBothUpdatesSucceed_ShouldNotLoadCards() {
+
+        when(cardRepository.debitIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(1);
+        when(cardRepository.creditIfAllowed(2L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(1);
+
+        transferEngine.doTransfer(1L, 2L, AMOUNT, USER_ID);
+
+        verify(cardRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void doTransfer_ShouldUpdateRowsInAscendingIdOrder() {
+
+        when(cardRepository.debitIfAllowed(2L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(1);
+        when(cardRepository.creditIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(1);
+
+        transferEngine.doTransfer(2L, 1L, AMOUNT, USER_ID);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).creditIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE);
+        inOrder.verify(cardRepository).debitIfAllowed(2L, AMOUNT, USER_ID, CardStatus.ACTIVE);
+    }
+
+    @Test
+    void doTransfer_WhenDebitRejectedForLowBalance_ShouldThrowException() {
+
+        when(cardRepository.debitIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(0);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card(USER_ID, CardStatus.ACTIVE)));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            transferEngine.doTransfer(1L, 2L, AMOUNT, USER_ID);
+        });
+
+        assertEquals("Недостаточно средств на карте-отправителе", exception.getMessage());
+        verify(cardRepository, never()).creditIfAllowed(any(), any(), any(), any());
+    }
+
+    @Test
+    void doTransfer_WhenCreditRejectedForForeignCard_ShouldThrowAccessDenied() {
+
+        when(cardRepository.debitIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(1);
+        when(cardRepository.creditIfAllowed(2L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(0);
+        when(cardRepository.findById(2L)).thenReturn(Optional.of(card(2L, CardStatus.ACTIVE)));
+
+        assertThrows(AccessDeniedException.class, () -> {
+            transferEngine.doTransfer(1L, 2L, AMOUNT, USER_ID);
+        });
+    }
+
+    @Test
+    void doTransfer_WhenDebitCardMissing_ShouldThrowNotFound() {
+
+        when(cardRepository.debitIfAllowed(1L, AMOUNT, USER_ID, CardStatus.ACTIVE)).thenReturn(0);
+        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> {
+            transferEngine.doTransfer(1L, 2L, AMOUNT, USER_ID);
+        });
+    }
+
+    private Card card(Long ownerId, CardStatus status) {
+        User owner = new User();
+        owner.setId(ownerId);
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setStatus(status);
+        return card;
+    }
+}
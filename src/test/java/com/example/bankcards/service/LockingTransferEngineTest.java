@@ -0,0 +1,127 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LockingTransferEngineTest {
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private RetryingTransactionExecutor transactionExecutor;
+    @Mock
+    private TransferLedger transferLedger;
+    @Mock
+    private CardVersionRegistry cardVersionRegistry;
+
+    private LockingTransferEngine transferEngine;
+
+    @BeforeEach
+    void setUp() {
+        transferEngine = new LockingTransferEngine(cardRepository, jdbcTemplate, transactionExecutor, transferLedger,
+                cardVersionRegistry, 3000);
+    }
+
+    @Test
+    void doTransfer_WhenSuccessful_ShouldUpdateBalancesAndSaveChanges() {
+
+        User owner = owner(1L);
+        Card fromCard = card(10L, owner, CardStatus.ACTIVE, "1000.00");
+        Card toCard = card(20L, owner, CardStatus.ACTIVE, "500.00");
+
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(toCard));
+
+        transferEngine.doTransfer(10L, 20L, new BigDecimal("200.00"), 1L);
+
+        assertEquals(new BigDecimal("800.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("700.00"), toCard.getBalance());
+
+        verify(cardRepository, times(2)).save(any(Card.class));
+    }
+
+    @Test
+    void doTransfer_ShouldLockCardsInAscendingIdOrder() {
+
+        User owner = owner(1L);
+        Card fromCard = card(20L, owner, CardStatus.ACTIVE, "1000.00");
+        Card toCard = card(10L, owner, CardStatus.ACTIVE, "500.00");
+
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(toCard));
+
+        transferEngine.doTransfer(20L, 10L, new BigDecimal("200.00"), 1L);
+
+        InOrder inOrder = inOrder(jdbcTemplate, cardRepository);
+        inOrder.verify(jdbcTemplate).queryForObject(anyString(), eq(String.class), eq("3000ms"));
+        inOrder.verify(cardRepository).findByIdForUpdate(10L);
+        inOrder.verify(cardRepository).findByIdForUpdate(20L);
+    }
+
+    @Test
+    void doTransfer_WhenLowBalance_ShouldThrowException() {
+
+        User owner = owner(1L);
+        Card fromCard = card(1L, owner, CardStatus.ACTIVE, "100.00");
+        Card toCard = card(2L, owner, CardStatus.ACTIVE, "0.00");
+
+        when(cardRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toCard));
+
+        assertThrows(IllegalStateException.class, () -> {
+            transferEngine.doTransfer(1L, 2L, new BigDecimal("200.00"), 1L);
+        });
+
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void doTransfer_WhenCardBelongsToAnotherUser_ShouldThrowException() {
+
+        Card fromCard = card(1L, owner(1L), CardStatus.ACTIVE, "1000.00");
+        Card toCard = card(2L, owner(2L), CardStatus.ACTIVE, "0.00");
+
+        when(cardRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toCard));
+
+        assertThrows(AccessDeniedException.class, () -> {
+            transferEngine.doTransfer(1L, 2L, new BigDecimal("200.00"), 1L);
+        });
+
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    private User owner(Long id) {
+        User owner = new User();
+        owner.setId(id);
+        return owner;
+    }
+
+    private Card card(Long id, User owner, CardStatus status, String balance) {
+        Card card = new Card();
+        card.setId(id);
+        card.setOwner(owner);
+        card.setStatus(status);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+}
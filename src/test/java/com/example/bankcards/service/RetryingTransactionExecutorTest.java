@@ -0,0 +1,50 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RetryingTransactionExecutorTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void execute_WhenLockConflictIsTransient_ShouldRetryInNewTransaction() {
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 3, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(status -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void execute_WhenAttemptsAreExhausted_ShouldRethrow() {
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        RetryingTransactionExecutor executor = new RetryingTransactionExecutor(transactionManager, 2, 1);
+
+        assertThrows(CannotAcquireLockException.class, () -> executor.execute(status -> {
+            throw new CannotAcquireLockException("lock timeout");
+        }));
+
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestcontainersConfiguration;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Много потоков одновременно переводят деньги с одной "горячей" карты и обратно на нее.
+ * Проверяет, что встречные переводы не теряют обновления и не взаимоблокируются, и печатает пропускную способность.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class TransferConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final int CARDS = 4;
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Test
+    void concurrentTransfersOnHotCard_ShouldKeepBalancesConsistent() throws Exception {
+
+        User owner = userRepository.findByUsername("user001").orElseThrow();
+        BigDecimal initialBalance = new BigDecimal("1000000.00");
+
+        Card hotCard = createCard(owner, initialBalance);
+        List<Card> otherCards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            otherCards.add(createCard(owner, initialBalance));
+        }
+
+        AtomicInteger[] netToHot = new AtomicInteger[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            netToHot[i] = new AtomicInteger();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int other = ThreadLocalRandom.current().nextInt(CARDS);
+                    boolean toHot = ThreadLocalRandom.current().nextBoolean();
+                    Card from = toHot ? otherCards.get(other) : hotCard;
+                    Card to = toHot ? hotCard : otherCards.get(other);
+
+                    cardService.transferMoney(transfer(from.getId(), to.getId()), owner.getId(), null);
+                    netToHot[other].addAndGet(toHot ? 1 : -1);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+
+        int totalTransfers = THREADS * TRANSFERS_PER_THREAD;
+        System.out.printf("Переводов: %d за %.2f с, %.0f переводов/с%n", totalTransfers, seconds, totalTransfers / seconds);
+
+        int hotDelta = 0;
+        for (int i = 0; i < CARDS; i++) {
+            int delta = netToHot[i].get();
+            hotDelta += delta;
+            BigDecimal expected = initialBalance.subtract(BigDecimal.valueOf(delta));
+            assertEquals(0, expected.compareTo(cardRepository.findById(otherCards.get(i).getId()).orElseThrow().getBalance()));
+        }
+        BigDecimal expectedHot = initialBalance.add(BigDecimal.valueOf(hotDelta));
+        assertEquals(0, expectedHot.compareTo(cardRepository.findById(hotCard.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void concurrentRetriesWithSameIdempotencyKey_ShouldMoveMoneyOnce() throws Exception {
+
+        User owner = userRepository.findByUsername("user001").orElseThrow();
+        BigDecimal initialBalance = new BigDecimal("1000.00");
+        Card from = createCard(owner, initialBalance);
+        Card to = createCard(owner, initialBalance);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cardService.transferMoney(transfer(from.getId(), to.getId()), owner.getId(), idempotencyKey).getId();
+            }));
+        }
+        start.countDown();
+        Long transferId = futures.get(0).get();
+        for (Future<Long> future : futures) {
+            assertEquals(transferId, future.get());
+        }
+        executor.shutdown();
+
+        assertTrue(transferRepository.findByUserIdAndIdempotencyKey(owner.getId(), idempotencyKey).isPresent());
+        assertEquals(0, initialBalance.subtract(BigDecimal.ONE).compareTo(cardRepository.findById(from.getId()).orElseThrow().getBalance()));
+        assertEquals(0, initialBalance.add(BigDecimal.ONE).compareTo(cardRepository.findById(to.getId()).orElseThrow().getBalance()));
+    }
+
+    private Card createCard(User owner, BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setCardNumber("test-" + System.nanoTime());
+        card.setExpiryDate(LocalDate.now().plusYears(3));
+        card.setBalance(balance);
+        card.setStatus(CardStatus.ACTIVE);
+        return cardRepository.save(card);
+    }
+
+    private TransferRequestDto transfer(Long fromCardId, Long toCardId) {
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(fromCardId);
+        dto.setToCardId(toCardId);
+        dto.setAmount(BigDecimal.ONE);
+        return dto;
+    }
+}
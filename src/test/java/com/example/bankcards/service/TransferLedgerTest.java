@@ -0,0 +1,91 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferEntry;
+import com.example.bankcards.repository.TransferEntryRepository;
+import com.example.bankcards.repository.TransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransferLedgerTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private TransferEntryRepository transferEntryRepository;
+
+    private TransferLedger transferLedger;
+
+    @BeforeEach
+    void setUp() {
+        transferLedger = new TransferLedger(transferRepository, transferEntryRepository, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void record_ShouldWriteTransferAndDebitCreditEntries() {
+
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> {
+            Transfer transfer = invocation.getArgument(0);
+            transfer.setId(7L);
+            return transfer;
+        });
+
+        Transfer transfer = transferLedger.record(10L, 20L, new BigDecimal("200.00"), 3L, "key-1");
+
+        assertEquals(7L, transfer.getId());
+        assertEquals(3L, transfer.getUserId());
+        assertEquals("key-1", transfer.getIdempotencyKey());
+        assertNotNull(transfer.getCreatedAt());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransferEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(transferEntryRepository).saveAll(entriesCaptor.capture());
+        List<TransferEntry> entries = entriesCaptor.getValue();
+
+        assertEquals(2, entries.size());
+        assertEquals(10L, entries.get(0).getCardId());
+        assertEquals(new BigDecimal("-200.00"), entries.get(0).getAmount());
+        assertEquals(20L, entries.get(1).getCardId());
+        assertEquals(new BigDecimal("200.00"), entries.get(1).getAmount());
+        assertTrue(entries.stream().allMatch(entry -> entry.getTransferId().equals(7L)));
+    }
+
+    @Test
+    void findByIdempotencyKey_ShouldQueryDatabaseOnlyOnce() {
+
+        Transfer transfer = new Transfer();
+        transfer.setId(7L);
+        when(transferRepository.findByUserIdAndIdempotencyKey(3L, "key-1")).thenReturn(Optional.of(transfer));
+
+        assertSame(transfer, transferLedger.findByIdempotencyKey(3L, "key-1").orElseThrow());
+        assertSame(transfer, transferLedger.findByIdempotencyKey(3L, "key-1").orElseThrow());
+
+        verify(transferRepository, times(1)).findByUserIdAndIdempotencyKey(3L, "key-1");
+    }
+
+    @Test
+    void findByIdempotencyKey_ShouldBeScopedToUser() {
+
+        Transfer transfer = new Transfer();
+        transferLedger.remember(3L, "key-1", transfer);
+
+        when(transferRepository.findByUserIdAndIdempotencyKey(4L, "key-1")).thenReturn(Optional.empty());
+
+        assertTrue(transferLedger.findByIdempotencyKey(4L, "key-1").isEmpty());
+        assertSame(transfer, transferLedger.findByIdempotencyKey(3L, "key-1").orElseThrow());
+    }
+}
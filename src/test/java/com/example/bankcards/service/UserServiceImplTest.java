@@ -3,7 +3,9 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.RegisterDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -24,6 +26,8 @@ public class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -74,4 +78,27 @@ public class UserServiceImplTest {
         verify(userRepository, never()).save(any(User.class));
         verify(passwordEncoder, never()).encode(anyString());
     }
+
+    @Test
+    void revokeTokens_WhenUserExists_ShouldBumpVersionAndUpdateRegistry() {
+
+        when(userRepository.incrementTokenVersion(1L)).thenReturn(1);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(3));
+
+        userService.revokeTokens(1L);
+
+        verify(tokenVersionRegistry).update(1L, 3);
+    }
+
+    @Test
+    void revokeTokens_WhenUserNotFound_ShouldThrowException() {
+
+        when(userRepository.incrementTokenVersion(1L)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> {
+            userService.revokeTokens(1L);
+        });
+
+        verify(tokenVersionRegistry, never()).update(anyLong(), anyInt());
+    }
 }
@@ -0,0 +1,27 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorUtilTest {
+
+    @Test
+    void decode_ShouldReturnEncodedPosition() {
+
+        Instant createdAt = Instant.parse("2026-03-15T08:30:00.123456Z");
+
+        CursorUtil.Position position = CursorUtil.decode(CursorUtil.encode(createdAt, 42L));
+
+        assertEquals(createdAt, position.createdAt());
+        assertEquals(42L, position.id());
+    }
+
+    @Test
+    void decode_WhenCursorIsGarbage_ShouldThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> CursorUtil.decode("not-a-cursor"));
+    }
+}
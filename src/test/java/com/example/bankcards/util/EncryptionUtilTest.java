@@ -0,0 +1,55 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.EncryptionException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncryptionUtilTest {
+
+    private static final String SECRET = "alb4A0V83mr6ccE2";
+
+    private final EncryptionUtil encryptionUtil = new EncryptionUtil(SECRET);
+
+    @Test
+    void encrypt_ShouldProduceVersionedGcmValueThatDecrypts() {
+
+        String encrypted = encryptionUtil.encrypt("1111222233334444");
+
+        assertTrue(encrypted.startsWith("v1:"));
+        assertEquals("1111222233334444", encryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void encrypt_ShouldUseRandomIv() {
+
+        assertNotEquals(encryptionUtil.encrypt("1111222233334444"), encryptionUtil.encrypt("1111222233334444"));
+    }
+
+    @Test
+    void decrypt_WhenValueIsInLegacyEcbFormat_ShouldDecrypt() throws Exception {
+
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(cipher.doFinal("1111222233334444".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("1111222233334444", encryptionUtil.decrypt(legacy));
+    }
+
+    @Test
+    void decrypt_WhenCiphertextIsTampered_ShouldThrowException() {
+
+        String encrypted = encryptionUtil.encrypt("1111222233334444");
+        byte[] payload = Base64.getDecoder().decode(encrypted.substring(3));
+        payload[payload.length - 1] ^= 1;
+        String tampered = "v1:" + Base64.getEncoder().encodeToString(payload);
+
+        assertThrows(EncryptionException.class, () -> encryptionUtil.decrypt(tampered));
+        assertEquals("1111222233334444", encryptionUtil.decrypt(encrypted));
+    }
+}